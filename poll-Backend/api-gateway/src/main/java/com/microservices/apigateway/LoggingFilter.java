@@ -1,42 +1,111 @@
 package com.microservices.apigateway;
 
+import com.microservices.apigateway.filter.RateLimitOutcome;
+import com.microservices.apigateway.util.ClientIdentityResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured access log: one line per completed request on the {@code gateway.access} logger with
+ * client key, status, latency, route id, upstream and rate-limit outcome.
+ * <p>
+ * Successful, fast requests are sampled ({@code apigateway.logging.sample-rate}); 5xx, failed or
+ * cancelled exchanges and requests slower than {@code apigateway.logging.slow-threshold-ms} are
+ * always logged. The logger is routed through an async, non-blocking appender in logback-spring.xml
+ * so the event loop never waits on log I/O.
+ */
 @Component
-public class LoggingFilter implements GlobalFilter {
+public class LoggingFilter implements GlobalFilter, Ordered {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("gateway.access");
 
-    private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
+    private final boolean enabled;
+    private final String[] excludePrefixes;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final ClientIdentityResolver identity;
 
-    // Toggle logging on/off
-    @Value("${apigateway.logging.enabled:true}")
-    private boolean enabled;
+    public LoggingFilter(
+            // Toggle logging on/off
+            @Value("${apigateway.logging.enabled:true}") boolean enabled,
+            // Comma-separated list of path prefixes to exclude from logging (defaults include actuator paths)
+            @Value("${apigateway.logging.exclude-prefixes:/actuator,/actuator/metrics,/actuator/prometheus}") String excludePrefixes,
+            @Value("${apigateway.logging.sample-rate:0.05}") double sampleRate,
+            @Value("${apigateway.logging.slow-threshold-ms:1000}") long slowThresholdMs,
+            ClientIdentityResolver identity
+    ) {
+        this.enabled = enabled;
+        this.excludePrefixes = Arrays.stream(excludePrefixes.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .toArray(String[]::new);
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.identity = identity;
+    }
 
-    // Comma-separated list of path prefixes to exclude from logging (defaults include actuator paths)
-    @Value("${apigateway.logging.exclude-prefixes:/actuator,/actuator/metrics,/actuator/prometheus}")
-    private String excludePrefixes;
+    @Override
+    public int getOrder() {
+        // outermost, so latency covers every other filter
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        if (!enabled) return chain.filter(exchange);
+        if (!enabled || !accessLog.isInfoEnabled()) return chain.filter(exchange);
 
         String path = exchange.getRequest().getPath().value();
         // skip common actuator/metrics/prometheus endpoints to reduce noisy logs
-        for (String prefix : excludePrefixes.split(",")) {
-            if (prefix == null || prefix.isBlank()) continue;
-            if (path.startsWith(prefix.trim())) {
+        for (String prefix : excludePrefixes) {
+            if (path.startsWith(prefix)) {
                 return chain.filter(exchange);
             }
         }
 
-        logger.info("[Gateway] Request path={}", path);
-        return chain.filter(exchange);
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> log(exchange, path, signal, System.nanoTime() - start));
+    }
+
+    private void log(ServerWebExchange exchange, String path, SignalType signal, long latencyNanos) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int code = status != null ? status.value() : 0;
+        boolean failed = signal != SignalType.ON_COMPLETE || code >= 500;
+        boolean slow = latencyNanos >= slowThresholdNanos;
+        if (!failed && !slow && (sampleRate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI upstream = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        RateLimitOutcome rateLimit = exchange.getAttribute(RateLimitOutcome.ATTR);
+
+        accessLog.info("method={} path={} client={} status={} latencyMs={} route={} upstream={} rateLimit={} outcome={}{}",
+                exchange.getRequest().getMethod(),
+                path,
+                identity.resolve(exchange),
+                code,
+                TimeUnit.NANOSECONDS.toMillis(latencyNanos),
+                route != null ? route.getId() : "-",
+                upstream != null ? upstream.getHost() + ":" + upstream.getPort() : "-",
+                rateLimit != null ? rateLimit.label() : "-",
+                signal == SignalType.ON_COMPLETE ? "complete" : signal == SignalType.CANCEL ? "cancelled" : "error",
+                slow ? " slow=true" : "");
     }
 }
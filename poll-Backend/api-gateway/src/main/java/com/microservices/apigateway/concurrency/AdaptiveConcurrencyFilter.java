@@ -0,0 +1,333 @@
+package com.microservices.apigateway.concurrency;
+
+import com.microservices.apigateway.config.PriorityProperties;
+import com.microservices.apigateway.filter.GatewayRequestContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit per route, guarding upstreams against aggregate overload that per-client
+ * rate limits cannot see.
+ * <p>
+ * Runs right after the load balancer has picked an instance, so the measured RTT is the upstream call
+ * alone (up to its response headers). Each route's limit follows {@link GradientLimit}, which keeps the
+ * upstream at the knee of its latency curve rather than past it.
+ * <p>
+ * A request that finds the limit reached waits in a small {@link WeightedFairQueue} under the priority
+ * class of its security rule ({@link PriorityProperties}); freed permits go to waiting classes in
+ * proportion to their weights. Requests are shed with 503 and {@code Retry-After} when the queue is full
+ * (lowest class first), or after {@code gateway.priority.max-wait-ms}, so votes and sign-ins keep being
+ * admitted while anonymous list traffic degrades.
+ * <p>
+ * Metrics per route: {@code gateway.concurrency.limit}, {@code gateway.concurrency.inflight},
+ * {@code gateway.concurrency.queued}; per route and class: {@code gateway.concurrency.shed{reason}} and
+ * {@code gateway.priority.queue.time} (queued requests only).
+ */
+@Component
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 50;
+
+    private static final byte[] OVERLOADED =
+            "{\"success\":false,\"message\":\"Service overloaded, retry later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final MeterRegistry meterRegistry;
+    private final PriorityProperties priorities;
+    private final int[] weights;
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final long windowNanos;
+    private final int longWindow;
+    private final String retryAfter;
+    private final Duration maxWait;
+
+    private final ConcurrentMap<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(
+            MeterRegistry meterRegistry,
+            PriorityProperties priorities,
+            @Value("${gateway.concurrency.enabled:true}") boolean enabled,
+            @Value("${gateway.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${gateway.concurrency.min-limit:5}") int minLimit,
+            @Value("${gateway.concurrency.max-limit:500}") int maxLimit,
+            @Value("${gateway.concurrency.smoothing:0.2}") double smoothing,
+            // short RTT may exceed the baseline by this factor before the limit shrinks
+            @Value("${gateway.concurrency.rtt-tolerance:1.5}") double tolerance,
+            @Value("${gateway.concurrency.window-ms:100}") long windowMs,
+            @Value("${gateway.concurrency.long-window:600}") int longWindow,
+            @Value("${gateway.concurrency.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.priorities = priorities;
+        this.weights = priorities.classes().stream().mapToInt(PriorityProperties.PriorityClass::weight).toArray();
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.windowNanos = Duration.ofMillis(windowMs).toNanos();
+        this.longWindow = longWindow;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfterSeconds));
+        this.maxWait = Duration.ofMillis(priorities.maxWaitMs());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!enabled || route == null) return chain.filter(exchange);
+
+        RouteLimiter limiter = limiter(route.getId());
+        int cls = priorityClass(exchange);
+        if (limiter.tryAcquire()) {
+            return forward(exchange, chain, limiter);
+        }
+
+        Waiter waiter = new Waiter(cls, System.nanoTime());
+        return Mono.<Boolean>create(sink -> limiter.enqueue(waiter, sink))
+                .flatMap(admitted -> admitted ? forward(exchange, chain, limiter) : overloaded(exchange));
+    }
+
+    /**
+     * Extra permit for a second upstream call made on behalf of an already admitted request (a hedge), so
+     * the route's in-flight count covers every outstanding upstream call. Never queues: returns the release
+     * action, or {@code null} when the route is at its limit or has requests waiting.
+     */
+    public Runnable tryAcquireExtra(String routeId) {
+        if (!enabled) return () -> { };
+        RouteLimiter limiter = limiter(routeId);
+        return limiter.tryAcquire() ? limiter::releasePermit : null;
+    }
+
+    RouteLimiter limiter(String routeId) {
+        return limiters.computeIfAbsent(routeId, this::newLimiter);
+    }
+
+    private int priorityClass(ServerWebExchange exchange) {
+        GatewayRequestContext context = exchange.getAttribute(GatewayRequestContext.ATTR);
+        return priorities.indexOf(context != null ? context.policy().priority() : null);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, RouteLimiter limiter) {
+        long start = System.nanoTime();
+        int inflight = limiter.inflight();
+        return chain.filter(exchange).doFinally(signal -> limiter.release(signal, start, inflight));
+    }
+
+    private Mono<Void> overloaded(ServerWebExchange exchange) {
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(OVERLOADED)));
+    }
+
+    private RouteLimiter newLimiter(String routeId) {
+        RouteLimiter limiter = new RouteLimiter(routeId,
+                new GradientLimit(initialLimit, minLimit, maxLimit, smoothing, tolerance, windowNanos, longWindow));
+        Gauge.builder("gateway.concurrency.limit", limiter.limit, GradientLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, RouteLimiter::inflight)
+                .description("Requests in flight to the route's upstream")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.queued", limiter.queued, AtomicInteger::get)
+                .description("Requests waiting for a concurrency permit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    /** A queued request; {@code state} settles the race between admission, timeout and cancellation. */
+    static final class Waiter {
+        static final int WAITING = 0, ADMITTED = 1, GONE = 2;
+
+        final int cls;
+        final long enqueuedAt;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        MonoSink<Boolean> sink;
+        Disposable timeout;
+
+        Waiter(int cls, long enqueuedAt) {
+            this.cls = cls;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    final class RouteLimiter {
+        final String routeId;
+        final GradientLimit limit;
+        final AtomicInteger queued = new AtomicInteger();
+        final Counter[] shedQueueFull;
+        final Counter[] shedTimeout;
+        final Timer[] queueTime;
+
+        // guarded by this
+        private final WeightedFairQueue<Waiter> queue;
+        private int inflight;
+
+        RouteLimiter(String routeId, GradientLimit limit) {
+            this.routeId = routeId;
+            this.limit = limit;
+            this.queue = new WeightedFairQueue<>(weights, priorities.queueCapacity());
+            int classes = weights.length;
+            this.shedQueueFull = new Counter[classes];
+            this.shedTimeout = new Counter[classes];
+            this.queueTime = new Timer[classes];
+            for (int i = 0; i < classes; i++) {
+                String cls = priorities.classes().get(i).name();
+                shedQueueFull[i] = shedCounter(cls, "queue-full");
+                shedTimeout[i] = shedCounter(cls, "timeout");
+                queueTime[i] = Timer.builder("gateway.priority.queue.time")
+                        .description("Time requests waited for a concurrency permit")
+                        .tags("route", routeId, "class", cls)
+                        .register(meterRegistry);
+            }
+        }
+
+        private Counter shedCounter(String cls, String reason) {
+            return Counter.builder("gateway.concurrency.shed")
+                    .description("Requests rejected with 503 by the adaptive concurrency limit")
+                    .tags("route", routeId, "class", cls, "reason", reason)
+                    .register(meterRegistry);
+        }
+
+        synchronized int inflight() {
+            return inflight;
+        }
+
+        /** Takes a permit directly; never jumps ahead of queued requests. */
+        synchronized boolean tryAcquire() {
+            if (inflight < limit.limit() && queue.isEmpty()) {
+                inflight++;
+                return true;
+            }
+            return false;
+        }
+
+        void enqueue(Waiter waiter, MonoSink<Boolean> sink) {
+            waiter.sink = sink;
+            Waiter refused;
+            List<Waiter> admitted;
+            synchronized (this) {
+                refused = queue.offer(waiter, waiter.cls);
+                if (refused != waiter) queued.incrementAndGet();
+                if (refused != null && refused != waiter) queued.decrementAndGet();
+                // the limit may have grown, or permits were freed before we got the lock
+                admitted = admit();
+            }
+            if (refused != null && refused.state.compareAndSet(Waiter.WAITING, Waiter.GONE)) {
+                shedQueueFull[refused.cls].increment();
+                refused.sink.success(false);
+            }
+            if (refused != waiter) {
+                waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter),
+                        maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                sink.onCancel(() -> cancel(waiter));
+            }
+            complete(admitted);
+        }
+
+        void release(SignalType signal, long start, int inflightAtStart) {
+            releasePermit();
+            // a cancelled exchange says nothing about upstream latency; errors (timeouts) do
+            if (signal == SignalType.CANCEL) return;
+            long now = System.nanoTime();
+            limit.onSample(now - start, inflightAtStart, now);
+        }
+
+        void releasePermit() {
+            List<Waiter> admitted;
+            synchronized (this) {
+                inflight--;
+                admitted = admit();
+            }
+            complete(admitted);
+        }
+
+        /** Hands free permits to queued requests; caller holds the lock. */
+        private List<Waiter> admit() {
+            List<Waiter> admitted = null;
+            while (inflight < limit.limit()) {
+                Waiter next = queue.poll();
+                if (next == null) break;
+                queued.decrementAndGet();
+                if (!next.state.compareAndSet(Waiter.WAITING, Waiter.ADMITTED)) continue;
+                inflight++;
+                if (admitted == null) admitted = new ArrayList<>(2);
+                admitted.add(next);
+            }
+            return admitted;
+        }
+
+        private void complete(List<Waiter> admitted) {
+            if (admitted == null) return;
+            long now = System.nanoTime();
+            for (Waiter w : admitted) {
+                if (w.timeout != null) w.timeout.dispose();
+                queueTime[w.cls].record(now - w.enqueuedAt, TimeUnit.NANOSECONDS);
+                w.sink.success(true);
+            }
+        }
+
+        private void expire(Waiter waiter) {
+            if (!waiter.state.compareAndSet(Waiter.WAITING, Waiter.GONE)) return;
+            synchronized (this) {
+                if (queue.remove(waiter, waiter.cls)) queued.decrementAndGet();
+            }
+            shedTimeout[waiter.cls].increment();
+            waiter.sink.success(false);
+        }
+
+        /** Client went away while queued, or right after being admitted (then the permit is returned). */
+        private void cancel(Waiter waiter) {
+            if (waiter.timeout != null) waiter.timeout.dispose();
+            if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.GONE)) {
+                synchronized (this) {
+                    if (queue.remove(waiter, waiter.cls)) queued.decrementAndGet();
+                }
+            } else if (waiter.state.compareAndSet(Waiter.ADMITTED, Waiter.GONE)) {
+                releasePermit();
+            }
+        }
+    }
+}
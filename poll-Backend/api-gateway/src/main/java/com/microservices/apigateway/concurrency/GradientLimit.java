@@ -0,0 +1,90 @@
+package com.microservices.apigateway.concurrency;
+
+/**
+ * Concurrency limit that follows the latency gradient, after Netflix's Gradient2: the limit shrinks
+ * when the short-term RTT rises above the long-term baseline and grows by about √limit per update while
+ * it does not.
+ * <p>
+ * Samples are averaged over windows of at least {@code windowNanos} and {@code MIN_WINDOW_SAMPLES}
+ * requests. Per window:
+ * <pre>
+ *   gradient = clamp(tolerance × longRtt / shortRtt, 0.5, 1)
+ *   limit    = (1 - smoothing) × limit + smoothing × (limit × gradient + √limit)
+ * </pre>
+ * The limit does not grow while less than half of it is in use (the client, not the upstream, is the
+ * bottleneck), and the long-term RTT is pulled down when the upstream has clearly recovered, so a past
+ * slow period does not keep the baseline high.
+ */
+final class GradientLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final int WARM_UP_WINDOWS = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final long windowNanos;
+    private final double longRttFactor;
+
+    private volatile int limit;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+    private int windows;
+    private long windowStart;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInflight;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance,
+                  long windowNanos, int longWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.smoothing = Math.max(0.01, Math.min(1.0, smoothing));
+        this.tolerance = Math.max(1.0, tolerance);
+        this.windowNanos = windowNanos;
+        this.longRttFactor = 2.0 / (Math.max(1, longWindow) + 1);
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    synchronized void onSample(long rttNanos, int inflight, long now) {
+        if (windowCount == 0) windowStart = now;
+        windowRttSum += rttNanos;
+        windowCount++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflight);
+        if (windowCount < MIN_WINDOW_SAMPLES || now - windowStart < windowNanos) return;
+
+        double shortRtt = (double) windowRttSum / windowCount;
+        int maxInflight = windowMaxInflight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+        update(shortRtt, maxInflight);
+    }
+
+    private void update(double shortRtt, int inflight) {
+        if (shortRtt <= 0) return;
+        // plain average while warming up, then an EWMA over ~longWindow windows
+        windows++;
+        longRtt = windows <= WARM_UP_WINDOWS
+                ? longRtt + (shortRtt - longRtt) / windows
+                : longRtt + (shortRtt - longRtt) * longRttFactor;
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inflight < estimatedLimit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        double next = (1 - smoothing) * estimatedLimit + smoothing * target;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+}
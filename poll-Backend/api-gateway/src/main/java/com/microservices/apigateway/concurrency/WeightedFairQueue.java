@@ -0,0 +1,85 @@
+package com.microservices.apigateway.concurrency;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded queue of requests waiting for a concurrency permit, one FIFO per priority class.
+ * <p>
+ * {@link #poll()} picks the class by smooth weighted round robin (as in nginx): every non-empty class
+ * gains its weight, the class with the highest running total is served and pays back the sum of the
+ * weights, so with weights 8:2 eight of every ten admissions go to the first class, evenly interleaved,
+ * and an idle class accumulates no credit. When the queue is full, an arrival may displace the newest
+ * waiter of a lower class; an arrival of the lowest waiting class (or lower) is refused.
+ * <p>
+ * Not thread-safe; {@code AdaptiveConcurrencyFilter} guards it with the route limiter's lock.
+ */
+final class WeightedFairQueue<T> {
+
+    private final ArrayDeque<T>[] queues;
+    private final int[] weights;
+    private final int[] current;
+    private final int capacity;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    WeightedFairQueue(int[] weights, int capacity) {
+        this.weights = weights.clone();
+        this.current = new int[weights.length];
+        this.queues = new ArrayDeque[weights.length];
+        for (int i = 0; i < queues.length; i++) queues[i] = new ArrayDeque<>();
+        this.capacity = capacity;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Enqueues {@code item} of class {@code cls} (0 = highest). Returns {@code null} if it was queued
+     * without displacing anything, the displaced lower-class waiter if the queue was full, or
+     * {@code item} itself if it was refused.
+     */
+    T offer(T item, int cls) {
+        T displaced = null;
+        if (size >= capacity) {
+            int lowest = lowestNonEmpty();
+            if (lowest <= cls) return item;
+            displaced = queues[lowest].pollLast();
+            size--;
+        }
+        queues[cls].addLast(item);
+        size++;
+        return displaced;
+    }
+
+    T poll() {
+        if (size == 0) return null;
+        int total = 0;
+        int best = -1;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].isEmpty()) continue;
+            current[i] += weights[i];
+            total += weights[i];
+            if (best < 0 || current[i] > current[best]) best = i;
+        }
+        current[best] -= total;
+        size--;
+        T item = queues[best].pollFirst();
+        if (queues[best].isEmpty()) current[best] = 0;
+        return item;
+    }
+
+    boolean remove(T item, int cls) {
+        if (!queues[cls].remove(item)) return false;
+        size--;
+        if (queues[cls].isEmpty()) current[cls] = 0;
+        return true;
+    }
+
+    private int lowestNonEmpty() {
+        for (int i = queues.length - 1; i >= 0; i--) {
+            if (!queues[i].isEmpty()) return i;
+        }
+        return -1;
+    }
+}
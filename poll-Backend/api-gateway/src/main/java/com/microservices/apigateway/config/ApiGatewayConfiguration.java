@@ -4,13 +4,14 @@ import com.microservices.apigateway.filter.AuthFilter;
 import com.microservices.apigateway.filter.RateLimitFilter;
 import com.microservices.apigateway.filter.ValidationFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod; // added
 
 @Configuration
+@EnableConfigurationProperties(PriorityProperties.class)
 public class ApiGatewayConfiguration {
 
     // Make the downstream base URL configurable per environment
@@ -19,43 +20,36 @@ public class ApiGatewayConfiguration {
 
     @Bean
     public RouteLocator gatewayRoutes(RouteLocatorBuilder builder, AuthFilter authFilter, ValidationFilter validationFilter, RateLimitFilter rateLimitFilter) {
+        // Which requests need a token and which rate-limit class they use comes from
+        // gateway.security.rules (RouteSecurityMatcher), not from the route predicates.
+        // Auth and rate-limit filters run before any rewritePath so rules see the client-facing path.
         return builder.routes()
 
                 // Public auth endpoints -> user-service (apply validation filter)
                 .route("user-auth", r -> r.path("/auth/**")
-                        .filters(f -> f.filter(validationFilter.apply(new ValidationFilter.Config())))
+                        .filters(f -> f.filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
+                                .filter(validationFilter.apply(new ValidationFilter.Config())))
                         // dev: route directly to local user-service (configurable)
                         .uri(userServiceBaseUrl))
 
                 .route("user-me", r -> r.path("/api/auth/me")
-                        .filters(f -> f.rewritePath("/api/auth/me", "/user/me")
-                                .filter(authFilter.apply(new AuthFilter.Config())))
+                        .filters(f -> f.filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
+                                .filter(authFilter.apply(new AuthFilter.Config()))
+                                .rewritePath("/api/auth/me", "/user/me"))
                         .uri(userServiceBaseUrl))
 
-                // Public READ-ONLY access to polls (anonymous allowed)
-                .route("poll-public-read", r -> r
-                        .path("/api/polls", "/api/polls/**")
-                        .and()
-                        .method(HttpMethod.GET)
-                        .filters(f -> f
-                                .filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
-                                // even for open endpoints, enrich identity if token present
-                                .filter(authFilter.apply(new AuthFilter.Config()))
-                        )
+                // Polls: anonymous reads and authenticated writes are both decided by the rules table
+                .route("polls", r -> r.path("/api/polls", "/api/polls/**")
+                        .filters(f -> f.filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
+                                .filter(authFilter.apply(new AuthFilter.Config())))
                         .uri("lb://poll-service"))
 
                 // Everything else to user-service (WITH auth filter + rate limit)
                 .route("user-protected", r -> r.path("/api/users/**")
-                        .filters(f -> f.rewritePath("/api/users/(?<remaining>.*)", "/user/${remaining}")
-                                .filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
-                                .filter(authFilter.apply(new AuthFilter.Config())))
-                        .uri(userServiceBaseUrl))
-
-                // Poll-service protected routes (POST/PUT/DELETE etc.)
-                .route("poll-protected", r -> r.path("/api/polls/**")
                         .filters(f -> f.filter(rateLimitFilter.apply(new RateLimitFilter.Config()))
-                                .filter(authFilter.apply(new AuthFilter.Config())))
-                        .uri("lb://poll-service"))
+                                .filter(authFilter.apply(new AuthFilter.Config()))
+                                .rewritePath("/api/users/(?<remaining>.*)", "/user/${remaining}"))
+                        .uri(userServiceBaseUrl))
 
                 // Note: Do not proxy /actuator through the gateway routes (avoid self-proxy/loop).
                 // The gateway exposes its own actuator endpoints on its server port and they will be handled directly.
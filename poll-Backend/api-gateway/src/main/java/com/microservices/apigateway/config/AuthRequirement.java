@@ -0,0 +1,8 @@
+package com.microservices.apigateway.config;
+
+public enum AuthRequirement {
+    /** A valid bearer token is mandatory; requests without one get 401. */
+    REQUIRED,
+    /** Anonymous access allowed; a valid token, if present, still populates the X-User-* headers. */
+    OPTIONAL
+}
@@ -0,0 +1,83 @@
+package com.microservices.apigateway.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * WebClient used by {@code RateLimitFilter} for {@code /limits/check}.
+ * <p>
+ * {@code limits.service.url} names the service ({@code http://limits-service}); every call is resolved
+ * through the load balancer, so new limits-service instances registered in Eureka take traffic without
+ * a gateway restart. Set {@code limits.service.load-balanced=false} to call a fixed host instead.
+ * <p>
+ * Connections come from a dedicated fixed pool kept warm with TCP keep-alive, so a check normally reuses
+ * a connection instead of opening one. The pool is bounded in connections and waiters, acquire and
+ * connect time out well below the response timeout, and its gauges are published as
+ * {@code reactor.netty.connection.provider.*{name=limits}} (active, idle, pending acquires). With
+ * {@code limits.service.h2c=true} the client upgrades to cleartext HTTP/2 where limits-service supports
+ * it and multiplexes checks over fewer connections.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LimitsClientConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider limitsConnectionProvider(
+            @Value("${limits.service.pool.max-connections:50}") int maxConnections,
+            @Value("${limits.service.pool.max-pending-acquires:500}") int maxPendingAcquires,
+            @Value("${limits.service.pool.acquire-timeout-ms:100}") long acquireTimeoutMs,
+            @Value("${limits.service.pool.max-idle-seconds:30}") long maxIdleSeconds,
+            @Value("${limits.service.pool.max-life-minutes:5}") long maxLifeMinutes) {
+        return ConnectionProvider.builder("limits")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                // recycled periodically so a re-balanced or restarted instance is picked up
+                .maxLifeTime(Duration.ofMinutes(maxLifeMinutes))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient limitsWebClient(
+            ConnectionProvider limitsConnectionProvider,
+            ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancer,
+            @Value("${limits.service.url:http://limits-service}") String limitsServiceUrl,
+            @Value("${limits.service.load-balanced:true}") boolean loadBalanced,
+            @Value("${limits.service.timeout-ms:250}") long timeoutMs,
+            @Value("${limits.service.connect-timeout-ms:100}") int connectTimeoutMs,
+            @Value("${limits.service.h2c:false}") boolean h2c) {
+        HttpClient httpClient = HttpClient.create(limitsConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .responseTimeout(Duration.ofMillis(timeoutMs));
+        if (h2c) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        WebClient.Builder builder = WebClient.builder()
+                .baseUrl(limitsServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        if (loadBalanced) {
+            ReactorLoadBalancerExchangeFilterFunction lb = loadBalancer.getIfAvailable();
+            if (lb == null) {
+                throw new IllegalStateException("limits.service.load-balanced=true but no load balancer is configured");
+            }
+            builder.filter(lb);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.microservices.apigateway.config;
+
+import com.microservices.apigateway.loadbalancer.OutlierEjectionConfiguration;
+import com.microservices.apigateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-service load-balancer setup for the {@code lb://} upstreams whose instances can degrade
+ * individually: passive outlier ejection for poll-service and user-service, and latency-aware
+ * balancing (power of two choices over peak EWMA) for poll-service unless
+ * {@code gateway.loadbalancer.strategy=round-robin}. Other services keep Spring Cloud's defaults.
+ */
+@Configuration(proxyBeanMethods = false)
+@LoadBalancerClients({
+        @LoadBalancerClient(name = "poll-service",
+                configuration = {PeakEwmaLoadBalancerConfiguration.class, OutlierEjectionConfiguration.class}),
+        @LoadBalancerClient(name = "user-service", configuration = OutlierEjectionConfiguration.class)
+})
+public class LoadBalancingConfiguration {
+}
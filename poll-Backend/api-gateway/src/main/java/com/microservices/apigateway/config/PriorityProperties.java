@@ -0,0 +1,54 @@
+package com.microservices.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Priority classes for admission to upstreams that are at their concurrency limit
+ * ({@code gateway.priority}). Classes are listed highest priority first; the weight is the class's share
+ * of admissions while several classes are waiting, and the last non-empty class is shed first when the
+ * queue is full.
+ *
+ * <pre>
+ * gateway:
+ *   priority:
+ *     queue-capacity: 200
+ *     max-wait-ms: 500
+ *     default-class: write
+ *     classes:
+ *       - { name: auth, weight: 8 }
+ *       - { name: read, weight: 2 }
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "gateway.priority")
+public record PriorityProperties(List<PriorityClass> classes, int queueCapacity, long maxWaitMs, String defaultClass) {
+
+    public PriorityProperties {
+        classes = classes == null || classes.isEmpty() ? List.of(new PriorityClass("default", 1)) : List.copyOf(classes);
+        queueCapacity = queueCapacity <= 0 ? 200 : queueCapacity;
+        maxWaitMs = maxWaitMs <= 0 ? 500 : maxWaitMs;
+        defaultClass = defaultClass == null || defaultClass.isBlank() ? classes.get(classes.size() - 1).name() : defaultClass;
+    }
+
+    public record PriorityClass(String name, int weight) {
+
+        public PriorityClass {
+            if (name == null || name.isBlank()) {
+                throw new IllegalStateException("gateway.priority.classes entries need a name");
+            }
+            weight = Math.max(1, weight);
+        }
+    }
+
+    /** Position of the class in {@link #classes()} (0 = highest), the default class for null or unknown names. */
+    public int indexOf(String name) {
+        int fallback = -1;
+        for (int i = 0; i < classes.size(); i++) {
+            String className = classes.get(i).name();
+            if (className.equals(name)) return i;
+            if (className.equals(defaultClass)) fallback = i;
+        }
+        return fallback >= 0 ? fallback : classes.size() - 1;
+    }
+}
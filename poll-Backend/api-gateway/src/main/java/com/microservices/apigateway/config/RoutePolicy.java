@@ -0,0 +1,28 @@
+package com.microservices.apigateway.config;
+
+/**
+ * Result of a {@link RouteSecurityMatcher} lookup: what the request needs to pass {@code AuthFilter}
+ * which limits-service class it is counted against and which priority class it is admitted under.
+ * Instances are created once at startup.
+ *
+ * @param pattern    the rule path that matched, or {@code null} for the default policy
+ * @param auth       authentication requirement
+ * @param limitClass rate-limit class sent to limits-service; {@value #NO_LIMIT} skips the check
+ * @param priority   class in {@code gateway.priority.classes}, or {@code null} for the default class
+ */
+public record RoutePolicy(String pattern, AuthRequirement auth, String limitClass, String priority) {
+
+    public static final String NO_LIMIT = "none";
+    public static final String DEFAULT_LIMIT_CLASS = "default";
+
+    /** Applied when no rule matches: authenticate and rate limit. */
+    public static final RoutePolicy DEFAULT = new RoutePolicy(null, AuthRequirement.REQUIRED, DEFAULT_LIMIT_CLASS, null);
+
+    public boolean authRequired() {
+        return auth == AuthRequirement.REQUIRED;
+    }
+
+    public boolean rateLimited() {
+        return !NO_LIMIT.equals(limitClass);
+    }
+}
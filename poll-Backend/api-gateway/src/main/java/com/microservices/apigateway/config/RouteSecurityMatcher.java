@@ -0,0 +1,177 @@
+package com.microservices.apigateway.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the {@link RoutePolicy} for a request from the {@code gateway.security.rules} table.
+ * <p>
+ * The rules are compiled once into a segment trie. A lookup walks the path in place
+ * ({@code regionMatches} against each node's literal segments, no substring or split) and reads the
+ * policy from a per-method slot, so it allocates nothing. Literal segments beat {@code *}, which beats
+ * a trailing {@code **}; the walk backtracks if a more specific branch has no policy for the method.
+ * <p>
+ * {@link #resolve(ServerWebExchange)} caches the result on the exchange so {@code RateLimitFilter} and
+ * {@code AuthFilter} share a single lookup.
+ */
+@Component
+public class RouteSecurityMatcher {
+
+    public static final String POLICY_ATTR = RouteSecurityMatcher.class.getName() + ".policy";
+
+    private static final Logger log = LoggerFactory.getLogger(RouteSecurityMatcher.class);
+
+    private static final HttpMethod[] METHODS = {
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.POST, HttpMethod.PUT,
+            HttpMethod.PATCH, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE
+    };
+    // slot for non-standard methods; only "any method" rules apply to it
+    private static final int OTHER = METHODS.length;
+    private static final int SLOTS = METHODS.length + 1;
+
+    private final Node root = new Node();
+
+    public RouteSecurityMatcher(SecurityRulesProperties properties) {
+        List<SecurityRulesProperties.Rule> rules = properties.rules();
+        // rules naming their methods first, so they take the slot before an any-method rule on the same pattern
+        for (var rule : rules) {
+            if (!rule.methods().isEmpty()) insert(rule);
+        }
+        for (var rule : rules) {
+            if (rule.methods().isEmpty()) insert(rule);
+        }
+        if (rules.isEmpty()) {
+            log.warn("No gateway.security.rules configured; every request requires authentication");
+        } else {
+            log.info("Compiled {} gateway security rules", rules.size());
+        }
+    }
+
+    /** Policy for the exchange, looked up once and then read from the exchange attributes. */
+    public RoutePolicy resolve(ServerWebExchange exchange) {
+        RoutePolicy policy = exchange.getAttribute(POLICY_ATTR);
+        if (policy == null) {
+            policy = match(exchange.getRequest());
+            exchange.getAttributes().put(POLICY_ATTR, policy);
+        }
+        return policy;
+    }
+
+    public RoutePolicy match(ServerHttpRequest request) {
+        return match(request.getMethod(), request.getPath().value());
+    }
+
+    public RoutePolicy match(HttpMethod method, String path) {
+        RoutePolicy policy = find(root, path, 0, slot(method));
+        return policy != null ? policy : RoutePolicy.DEFAULT;
+    }
+
+    private static RoutePolicy find(Node node, String path, int pos, int slot) {
+        int len = path.length();
+        while (pos < len && path.charAt(pos) == '/') pos++;
+
+        if (pos >= len) {
+            RoutePolicy exact = node.exact[slot];
+            return exact != null ? exact : node.rest[slot];
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) end = len;
+        int segLen = end - pos;
+
+        String[] literals = node.literals;
+        for (int i = 0; i < literals.length; i++) {
+            String literal = literals[i];
+            if (literal.length() == segLen && path.regionMatches(pos, literal, 0, segLen)) {
+                RoutePolicy p = find(node.children[i], path, end, slot);
+                if (p != null) return p;
+                break;
+            }
+        }
+        if (node.wildcard != null) {
+            RoutePolicy p = find(node.wildcard, path, end, slot);
+            if (p != null) return p;
+        }
+        return node.rest[slot];
+    }
+
+    private void insert(SecurityRulesProperties.Rule rule) {
+        if (rule.path() == null || !rule.path().startsWith("/")) {
+            throw new IllegalStateException("gateway.security.rules path must start with '/': " + rule.path());
+        }
+        var policy = new RoutePolicy(rule.path(), rule.auth(), rule.rateLimit(), rule.priority());
+
+        Node node = root;
+        boolean rest = false;
+        List<String> segments = new ArrayList<>(Arrays.asList(rule.path().split("/")));
+        segments.removeIf(String::isEmpty);
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.equals("**")) {
+                if (i != segments.size() - 1) {
+                    throw new IllegalStateException("'**' is only supported as the last segment: " + rule.path());
+                }
+                rest = true;
+            } else if (segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.wildcard == null) node.wildcard = new Node();
+                node = node.wildcard;
+            } else {
+                node = node.child(segment);
+            }
+        }
+
+        RoutePolicy[] slots = rest ? node.rest : node.exact;
+        if (rule.methods().isEmpty()) {
+            for (int s = 0; s < SLOTS; s++) {
+                if (slots[s] == null) slots[s] = policy;
+            }
+            return;
+        }
+        for (String m : rule.methods()) {
+            int s = slot(HttpMethod.valueOf(m.trim().toUpperCase()));
+            if (s == OTHER) {
+                throw new IllegalStateException("Unsupported method '" + m + "' in gateway.security.rules: " + rule.path());
+            }
+            if (slots[s] == null) {
+                slots[s] = policy;
+            } else {
+                log.warn("Ignoring duplicate security rule {} {}; already covered by {}", m, rule.path(), slots[s].pattern());
+            }
+        }
+    }
+
+    private static int slot(HttpMethod method) {
+        if (method == null) return OTHER;
+        for (int i = 0; i < METHODS.length; i++) {
+            // standard methods are interned constants
+            if (METHODS[i] == method) return i;
+        }
+        return OTHER;
+    }
+
+    private static final class Node {
+        String[] literals = new String[0];
+        Node[] children = new Node[0];
+        Node wildcard;
+        final RoutePolicy[] exact = new RoutePolicy[SLOTS];
+        final RoutePolicy[] rest = new RoutePolicy[SLOTS];
+
+        Node child(String segment) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) return children[i];
+            }
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            literals[literals.length - 1] = segment;
+            return children[children.length - 1] = new Node();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.microservices.apigateway.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
+/**
+ * Spring Security stays permissive: per-route authentication is enforced by {@code AuthFilter}
+ * from the {@code gateway.security.rules} table ({@link RouteSecurityMatcher}).
+ */
 @Configuration
+@EnableConfigurationProperties(SecurityRulesProperties.class)
 public class SecurityConfig {
 
     @Bean
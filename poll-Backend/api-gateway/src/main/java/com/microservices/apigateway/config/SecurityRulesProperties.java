@@ -0,0 +1,43 @@
+package com.microservices.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Declarative gateway security rules ({@code gateway.security.rules}), compiled by {@link RouteSecurityMatcher}.
+ *
+ * <pre>
+ * gateway:
+ *   security:
+ *     rules:
+ *       - path: /api/polls/**
+ *         methods: [GET]
+ *         auth: optional
+ *         rate-limit: public-read
+ *         priority: read
+ * </pre>
+ *
+ * Paths are matched against the client-facing path (before any rewrite). {@code *} (or {@code {name}})
+ * matches one segment and a trailing {@code **} matches zero or more. An empty {@code methods} list
+ * means any method; a rule naming the method wins over one that doesn't. {@code priority} names a
+ * class from {@code gateway.priority.classes} (see {@link PriorityProperties}); without it the request
+ * gets {@code gateway.priority.default-class}.
+ */
+@ConfigurationProperties(prefix = "gateway.security")
+public record SecurityRulesProperties(List<Rule> rules) {
+
+    public SecurityRulesProperties {
+        rules = rules == null ? List.of() : List.copyOf(rules);
+    }
+
+    public record Rule(String path, List<String> methods, AuthRequirement auth, String rateLimit, String priority) {
+
+        public Rule {
+            methods = methods == null ? List.of() : List.copyOf(methods);
+            auth = auth == null ? AuthRequirement.REQUIRED : auth;
+            rateLimit = rateLimit == null || rateLimit.isBlank() ? RoutePolicy.DEFAULT_LIMIT_CLASS : rateLimit;
+            priority = priority == null || priority.isBlank() ? null : priority;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.microservices.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for upstream responses the client accepts it for ({@code Accept-Encoding}), of a compressible
+ * {@code gateway.compression.mime-types} type and at least {@code min-size-bytes} long.
+ * <p>
+ * The body is buffered up to {@code max-size-bytes} (larger ones pass through as they arrive) and
+ * compressed on a small bounded pool, never on the Netty event loop; when the pool's queue is full the
+ * response goes out uncompressed instead of waiting. Streaming types (NDJSON exports, SSE) are not in the
+ * default type list. Anonymous responses are cached compressed, keyed by the SHA-256 of the uncompressed
+ * body, so an unchanged poll list is compressed once however many clients fetch it; the key is the
+ * content itself, so an entry can never be served for a different body.
+ * <p>
+ * Metrics: {@code gateway.compression.ratio} (compressed / original size, per route),
+ * {@code gateway.compression.cpu} (thread CPU time per compression), {@code gateway.compression.bytes}
+ * {@code {stage=in|out}}, {@code gateway.compression.cache{result}} and
+ * {@code gateway.compression.skipped{reason}}.
+ */
+@Component
+public class CompressionFilter implements GlobalFilter, Ordered, DisposableBean {
+
+    // wraps the response before NettyWriteResponseFilter writes the upstream body into it
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private static final String GZIP = "gzip";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final RequestContextFilter contexts;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int minSize;
+    private final int maxSize;
+    private final int level;
+    private final List<MediaType> mimeTypes;
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final Cache<String, byte[]> cache;
+
+    private final Timer cpu;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public CompressionFilter(
+            RequestContextFilter contexts,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.compression.enabled:true}") boolean enabled,
+            @Value("${gateway.compression.min-size-bytes:1024}") int minSize,
+            @Value("${gateway.compression.max-size-bytes:4194304}") int maxSize,
+            @Value("${gateway.compression.level:6}") int level,
+            @Value("${gateway.compression.mime-types:application/json,application/problem+json,text/plain,text/html,text/css,application/javascript,application/xml,text/xml}") String mimeTypes,
+            // 0 = half the cores
+            @Value("${gateway.compression.threads:0}") int threads,
+            @Value("${gateway.compression.queue-capacity:256}") int queueCapacity,
+            @Value("${gateway.compression.cache.max-bytes:33554432}") long cacheMaxBytes,
+            @Value("${gateway.compression.cache.expire-seconds:300}") long cacheExpireSeconds
+    ) {
+        this.contexts = contexts;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.level = Math.max(1, Math.min(9, level));
+        this.mimeTypes = Arrays.stream(mimeTypes.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(MediaType::parseMediaType)
+                .toList();
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().daemon().name("gateway-compression-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(executor, "gateway-compression");
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(0, cacheMaxBytes))
+                .<String, byte[]>weigher((key, gzipped) -> gzipped.length)
+                .expireAfterAccess(Duration.ofSeconds(cacheExpireSeconds))
+                .build();
+
+        this.cpu = Timer.builder("gateway.compression.cpu")
+                .description("CPU time spent compressing one response body")
+                .register(meterRegistry);
+        this.bytesIn = Counter.builder("gateway.compression.bytes")
+                .description("Response bytes before and after compression")
+                .baseUnit("bytes")
+                .tag("stage", "in")
+                .register(meterRegistry);
+        this.bytesOut = Counter.builder("gateway.compression.bytes")
+                .description("Response bytes before and after compression")
+                .baseUnit("bytes")
+                .tag("stage", "out")
+                .register(meterRegistry);
+        this.cacheHits = cacheCounter("hit");
+        this.cacheMisses = cacheCounter("miss");
+        Gauge.builder("gateway.compression.cache.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Compressed bodies held in the precompressed cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.compression.queue", executor, e -> e.getQueue().size())
+                .description("Bodies waiting for a compression thread")
+                .register(meterRegistry);
+    }
+
+    private Counter cacheCounter(String result) {
+        return Counter.builder("gateway.compression.cache")
+                .description("Anonymous responses served from / added to the precompressed cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled || exchange.getRequest().getMethod() == HttpMethod.HEAD
+                || !acceptsGzip(exchange.getRequest().getHeaders())) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = new CompressingResponse(exchange);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    /** True unless gzip is refused with {@code q=0}, explicitly or through {@code *}. */
+    static boolean acceptsGzip(HttpHeaders headers) {
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String entry : value.split(",")) {
+                String[] parts = entry.split(";");
+                String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                boolean accepted = true;
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=") || param.startsWith("Q=")) {
+                        try {
+                            accepted = Double.parseDouble(param.substring(2).trim()) > 0;
+                        } catch (NumberFormatException e) {
+                            accepted = false;
+                        }
+                    }
+                }
+                if (coding.equals(GZIP) || coding.equals("x-gzip")) gzip = accepted;
+                else if (coding.equals("*")) wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : wildcard != null && wildcard;
+    }
+
+    private boolean compressible(HttpHeaders headers) {
+        MediaType type = headers.getContentType();
+        if (type == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) return false;
+        for (MediaType candidate : mimeTypes) {
+            if (candidate.isCompatibleWith(type)) return true;
+        }
+        return false;
+    }
+
+    private byte[] compress(byte[] body) {
+        boolean measureCpu = THREADS.isCurrentThreadCpuTimeSupported();
+        long start = measureCpu ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long end = measureCpu ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        cpu.record(end - start, TimeUnit.NANOSECONDS);
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Runs on the compression pool: cache lookup for anonymous bodies, otherwise gzip. */
+    private byte[] gzipped(byte[] body, boolean cacheable) {
+        if (!cacheable) return compress(body);
+        String key = digest(body);
+        byte[] cached = cache.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+        byte[] gzipped = compress(body);
+        cache.asMap().putIfAbsent(key, gzipped);
+        return gzipped;
+    }
+
+    private void skipped(String reason) {
+        Counter.builder("gateway.compression.skipped")
+                .description("Compressible responses sent uncompressed")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static byte[] drain(List<DataBuffer> buffers) {
+        int length = 0;
+        for (DataBuffer buffer : buffers) length += buffer.readableByteCount();
+        byte[] raw = new byte[length];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int n = buffer.readableByteCount();
+            buffer.read(raw, offset, n);
+            offset += n;
+            DataBufferUtils.release(buffer);
+        }
+        return raw;
+    }
+
+    private final class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        CompressingResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value() || !compressible(headers)) {
+                return super.writeWith(body);
+            }
+            // the representation now depends on Accept-Encoding, whether or not this one is compressed
+            headers.addIfAbsent(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            long declared = headers.getContentLength();
+            if (declared >= 0 && declared < minSize) return super.writeWith(body);
+            if (declared > maxSize) {
+                skipped("too-large");
+                return super.writeWith(body);
+            }
+
+            // one list with the whole body, or (once maxSize is passed) a prefix followed by single buffers
+            AtomicLong seen = new AtomicLong();
+            Flux<List<DataBuffer>> chunks = Flux.from(body).map(DataBuffer.class::cast)
+                    .bufferUntil(buffer -> seen.addAndGet(buffer.readableByteCount()) > maxSize);
+            return chunks.switchOnFirst((first, all) -> {
+                if (!first.hasValue() || seen.get() > maxSize) {
+                    if (seen.get() > maxSize) skipped("too-large");
+                    return super.writeWith(all.concatMapIterable(list -> list));
+                }
+                byte[] raw = drain(first.get());
+                if (raw.length < minSize) return writeRaw(raw);
+
+                boolean cacheable = !contexts.resolve(exchange).authenticated();
+                return Mono.fromCallable(() -> Optional.of(gzipped(raw, cacheable)))
+                        .subscribeOn(scheduler)
+                        .onErrorResume(e -> {
+                            skipped(e instanceof RejectedExecutionException ? "busy" : "error");
+                            return Mono.just(Optional.<byte[]>empty());
+                        })
+                        .flatMap(gzipped -> gzipped.isPresent() && gzipped.get().length < raw.length
+                                ? writeGzipped(raw.length, gzipped.get())
+                                : writeRaw(raw));
+            }).then();
+        }
+
+        private Mono<Void> writeRaw(byte[] raw) {
+            getHeaders().setContentLength(raw.length);
+            return super.writeWith(Mono.fromSupplier(() -> bufferFactory().wrap(raw)));
+        }
+
+        private Mono<Void> writeGzipped(int originalLength, byte[] gzipped) {
+            HttpHeaders headers = getHeaders();
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.setContentLength(gzipped.length);
+            headers.remove(HttpHeaders.ACCEPT_RANGES);
+            String etag = headers.getETag();
+            // byte ranges of the gzipped body differ from the upstream entity's
+            if (etag != null && !etag.startsWith("W/")) headers.setETag("W/" + etag);
+
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            DistributionSummary.builder("gateway.compression.ratio")
+                    .description("Compressed / original response size")
+                    .tag("route", route != null ? route.getId() : "-")
+                    .register(meterRegistry)
+                    .record((double) gzipped.length / originalLength);
+            bytesIn.increment(originalLength);
+            bytesOut.increment(gzipped.length);
+            return super.writeWith(Mono.fromSupplier(() -> bufferFactory().wrap(gzipped)));
+        }
+    }
+}
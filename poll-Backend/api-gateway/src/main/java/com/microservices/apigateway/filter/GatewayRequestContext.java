@@ -0,0 +1,22 @@
+package com.microservices.apigateway.filter;
+
+import com.microservices.apigateway.config.RoutePolicy;
+
+/**
+ * Everything the gateway filters need to know about a request, resolved once by {@link RequestContextFilter}.
+ *
+ * @param policy       rule from {@code gateway.security.rules}
+ * @param user         validated token claims, or null for anonymous callers and rejected tokens
+ * @param authError    why a presented token was rejected (null if none was sent or it was valid)
+ * @param rateLimitKey {@code user:<id>} for authenticated callers, otherwise the client network identity
+ */
+public record GatewayRequestContext(RoutePolicy policy, User user, String authError, String rateLimitKey) {
+
+    public static final String ATTR = GatewayRequestContext.class.getName();
+
+    public boolean authenticated() {
+        return user != null;
+    }
+
+    public record User(String id, String email, String roles) {}
+}
@@ -0,0 +1,402 @@
+package com.microservices.apigateway.filter;
+
+import com.microservices.apigateway.concurrency.AdaptiveConcurrencyFilter;
+import com.microservices.apigateway.loadbalancer.OutlierDetector;
+import com.microservices.apigateway.loadbalancer.UpstreamStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http.HttpMethod;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Hedged requests for idempotent reads: if the upstream has not answered after the route's recent
+ * {@code gateway.hedging.percentile} latency, the same request is sent to a second instance and the first
+ * response wins; the other exchange is cancelled.
+ * <p>
+ * Opt-in per route ({@code gateway.hedging.routes}) and path ({@code gateway.hedging.paths}), for GET and
+ * HEAD without a body on {@code lb://} routes only. Matching requests are proxied here instead of by the
+ * routing filter, with the same request/response header filters. A response that arrives before the hedge
+ * delay is streamed straight through. Once a hedge has been sent, both bodies are buffered so the loser
+ * can be dropped cleanly; a body that outgrows {@code max-response-bytes} ends the race and is streamed
+ * through from what was buffered. The hedge goes to the least-loaded other instance according to
+ * {@link UpstreamStats}.
+ * <p>
+ * Hedges are paid for from a budget: every eligible request earns {@code budget-percent}/100 of a token
+ * and a hedge costs one, so extra upstream load stays below that share even when the whole pool is slow.
+ * A hedge also takes its own permit from {@link AdaptiveConcurrencyFilter} (no permit, no hedge) and reports
+ * its in-flight count, latency and outcome to {@link UpstreamStats} and {@link OutlierDetector}, like a
+ * load-balanced call. Metrics per route: {@code gateway.hedging.requests}, {@code gateway.hedging.sent},
+ * {@code gateway.hedging.wins}, {@code gateway.hedging.budget.exhausted},
+ * {@code gateway.hedging.concurrency.limited}.
+ */
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered, DisposableBean {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 150;
+
+    private final ObjectProvider<LoadBalancerClientFactory> clientFactory;
+    private final UpstreamStats stats;
+    private final OutlierDetector outliers;
+    private final AdaptiveConcurrencyFilter concurrency;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+    private final ConnectionProvider connections;
+    private final HttpClient httpClient;
+    private final boolean enabled;
+    private final Set<String> routes;
+    private final List<PathPattern> paths;
+    private final double percentile;
+    private final Duration minDelay;
+    private final double budgetRatio;
+    private final int maxResponseBytes;
+
+    private final ConcurrentMap<String, RouteHedging> hedging = new ConcurrentHashMap<>();
+
+    public HedgingFilter(
+            ObjectProvider<LoadBalancerClientFactory> clientFactory,
+            UpstreamStats stats,
+            OutlierDetector outliers,
+            AdaptiveConcurrencyFilter concurrency,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+            MeterRegistry meterRegistry,
+            @Value("${gateway.hedging.enabled:false}") boolean enabled,
+            @Value("${gateway.hedging.routes:}") String routes,
+            @Value("${gateway.hedging.paths:}") String paths,
+            @Value("${gateway.hedging.percentile:0.95}") double percentile,
+            @Value("${gateway.hedging.min-delay-ms:5}") long minDelayMs,
+            @Value("${gateway.hedging.budget-percent:5}") double budgetPercent,
+            @Value("${gateway.hedging.response-timeout-ms:5000}") long responseTimeoutMs,
+            @Value("${gateway.hedging.max-response-bytes:262144}") int maxResponseBytes
+    ) {
+        this.clientFactory = clientFactory;
+        this.stats = stats;
+        this.outliers = outliers;
+        this.concurrency = concurrency;
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.routes = Set.copyOf(split(routes));
+        PathPatternParser parser = new PathPatternParser();
+        this.paths = split(paths).stream().map(parser::parse).toList();
+        this.percentile = Math.max(0.5, Math.min(0.999, percentile));
+        this.minDelay = Duration.ofMillis(Math.max(1, minDelayMs));
+        this.budgetRatio = Math.max(0, budgetPercent) / 100.0;
+        this.maxResponseBytes = maxResponseBytes;
+        this.connections = ConnectionProvider.builder("hedging")
+                .maxConnections(200)
+                .pendingAcquireTimeout(Duration.ofMillis(responseTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+        this.httpClient = HttpClient.create(connections).responseTimeout(Duration.ofMillis(responseTimeoutMs));
+    }
+
+    @Override
+    public void destroy() {
+        connections.dispose();
+    }
+
+    private static List<String> split(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled || ServerWebExchangeUtils.isAlreadyRouted(exchange)) return chain.filter(exchange);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (route == null || url == null || chosen == null || !chosen.hasServer() || !eligible(route, exchange)) {
+            return chain.filter(exchange);
+        }
+
+        RouteHedging h = hedging.computeIfAbsent(route.getId(), this::newRouteHedging);
+        h.requests.increment();
+        h.earn();
+        ServiceInstance primary = chosen.getServer();
+        // a copy: with no header filters the request's own read-only headers come back
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange));
+        // Reactor Netty sets Host from the upstream URI
+        headers.remove(HttpHeaders.HOST);
+        HttpMethod method = HttpMethod.valueOf(exchange.getRequest().getMethod().name());
+
+        // the primary's own latency, whether it wins or not: a loser is cancelled after at least the hedge
+        // delay, which keeps the tail of the window at or above the percentile instead of drifting down
+        // to the winners' latencies
+        AtomicBoolean hedged = new AtomicBoolean();
+        Mono<Upstream> first = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return send(method, url, headers, hedged::get)
+                    .map(r -> r.from(false))
+                    .doFinally(signal -> h.latencies.record(System.nanoTime() - start));
+        });
+        Duration delay = h.latencies.delay(percentile, minDelay);
+        Mono<Upstream> second = delay == null ? Mono.empty() : Mono.delay(delay)
+                .flatMap(t -> otherInstance(route.getUri().getHost(), primary))
+                .flatMap(other -> {
+                    // the hedge is a second upstream call and holds its own concurrency permit
+                    Runnable permit = concurrency.tryAcquireExtra(route.getId());
+                    if (permit == null) {
+                        h.concurrencyLimited.increment();
+                        return Mono.empty();
+                    }
+                    if (!h.tryHedge()) {
+                        permit.run();
+                        h.budgetExhausted.increment();
+                        return Mono.empty();
+                    }
+                    h.sent.increment();
+                    hedged.set(true);
+                    return hedge(other, send(method, reconstruct(url, other), headers, () -> true), permit)
+                            .map(r -> r.from(true));
+                });
+
+        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+        return Mono.firstWithValue(first, second)
+                // both attempts failed: surface the first upstream error, as the routing filter would
+                .onErrorMap(NoSuchElementException.class::isInstance,
+                        e -> e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e)
+                .flatMap(winner -> {
+                    if (winner.hedge()) h.wins.increment();
+                    return write(exchange, winner);
+                });
+    }
+
+    /**
+     * The hedge bypasses the load balancer, so it reports to the same statistics the lifecycle callbacks
+     * feed for the primary: in-flight count and latency in {@link UpstreamStats}, outcome in
+     * {@link OutlierDetector} (a cancelled loser is no outcome, as for a discarded exchange).
+     */
+    private Mono<Upstream> hedge(ServiceInstance instance, Mono<Upstream> call, Runnable permit) {
+        return Mono.defer(() -> {
+            UpstreamStats.InstanceStats instanceStats = stats.get(instance);
+            long start = System.nanoTime();
+            instanceStats.begin();
+            return call
+                    .doOnSuccess(r -> outliers.record(instance, r != null && r.status() >= 500))
+                    .doOnError(e -> outliers.record(instance, true))
+                    .doFinally(signal -> {
+                        long now = System.nanoTime();
+                        instanceStats.end(now - start, now);
+                        permit.run();
+                    });
+        });
+    }
+
+    private boolean eligible(Route route, ServerWebExchange exchange) {
+        if (!routes.contains(route.getId()) || !"lb".equals(route.getUri().getScheme())) return false;
+        var request = exchange.getRequest();
+        String method = request.getMethod().name();
+        if (!method.equals("GET") && !method.equals("HEAD")) return false;
+        if (request.getHeaders().getContentLength() > 0 || request.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+            return false;
+        }
+        if (paths.isEmpty()) return true;
+        for (PathPattern pattern : paths) {
+            if (pattern.matches(request.getPath().pathWithinApplication())) return true;
+        }
+        return false;
+    }
+
+    /** Least-loaded instance other than the primary (ejected instances are already filtered out). */
+    private Mono<ServiceInstance> otherInstance(String serviceId, ServiceInstance primary) {
+        LoadBalancerClientFactory factory = clientFactory.getIfAvailable();
+        if (factory == null) return Mono.empty();
+        ServiceInstanceListSupplier supplier = factory.getInstance(serviceId, ServiceInstanceListSupplier.class);
+        if (supplier == null) return Mono.empty();
+        return supplier.get().next().flatMap(instances -> Mono.justOrEmpty(instances.stream()
+                .filter(i -> !(i.getHost().equals(primary.getHost()) && i.getPort() == primary.getPort()))
+                .min(Comparator.comparingDouble(i -> stats.get(i).load()))));
+    }
+
+    private static URI reconstruct(URI url, ServiceInstance instance) {
+        return UriComponentsBuilder.fromUri(url)
+                .scheme(instance.isSecure() ? "https" : "http")
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    /**
+     * Sends the request; the result is ready to be written on the response headers, or, if {@code buffered}
+     * says so by then, once the whole body has arrived or {@code max-response-bytes} of it have. The rest of
+     * the body is read from the connection as the client takes it.
+     */
+    private Mono<Upstream> send(HttpMethod method, URI url, HttpHeaders headers, BooleanSupplier buffered) {
+        AtomicReference<Upstream> head = new AtomicReference<>();
+        Flux<List<byte[]>> chunks = httpClient
+                .headers(h -> headers.forEach(h::set))
+                .request(method)
+                .uri(url)
+                .response((response, body) -> {
+                    HttpHeaders responseHeaders = new HttpHeaders();
+                    response.responseHeaders().forEach(e -> responseHeaders.add(e.getKey(), e.getValue()));
+                    head.set(new Upstream(response.status().code(), responseHeaders, Flux.empty(), false));
+                    Flux<byte[]> bytes = body.asByteArray();
+                    if (!buffered.getAsBoolean()) return bytes.map(List::of).startWith(List.<byte[]>of());
+                    long[] size = {0};
+                    // the first list is the whole body, or everything up to the chunk that crossed the cap
+                    return bytes.bufferUntil(chunk -> (size[0] += chunk.length) > maxResponseBytes)
+                            .switchIfEmpty(Mono.just(List.of()));
+                });
+        // the exchange stays open after the first list: the winner's body is read by write(), a loser's is cancelled
+        return chunks.switchOnFirst((first, all) -> first.hasValue()
+                        ? Mono.just(head.get().withBody(all.concatMapIterable(Function.identity())))
+                        : all.then(Mono.<Upstream>empty()), false)
+                .singleOrEmpty();
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Upstream upstream) {
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(upstream.status()));
+        HttpHeaders filtered = HttpHeadersFilter.filter(headersFilters.getIfAvailable(List::of), upstream.headers(),
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+        filtered.remove(HttpHeaders.TRANSFER_ENCODING);
+        // the upstream's Content-Length stands, also for HEAD, where the body is empty
+        response.getHeaders().putAll(filtered);
+        var bufferFactory = response.bufferFactory();
+        return response.writeWith(upstream.body().map(bufferFactory::wrap));
+    }
+
+    private RouteHedging newRouteHedging(String routeId) {
+        return new RouteHedging(
+                counter("gateway.hedging.requests", "Requests eligible for hedging", routeId),
+                counter("gateway.hedging.sent", "Hedge requests sent to a second instance", routeId),
+                counter("gateway.hedging.wins", "Requests answered by the hedge", routeId),
+                counter("gateway.hedging.budget.exhausted", "Hedges skipped because the budget was spent", routeId),
+                counter("gateway.hedging.concurrency.limited", "Hedges skipped because the route was at its concurrency limit", routeId),
+                budgetRatio);
+    }
+
+    private Counter counter(String name, String description, String routeId) {
+        return Counter.builder(name).description(description).tag("route", routeId).register(meterRegistry);
+    }
+
+    private record Upstream(int status, HttpHeaders headers, Flux<byte[]> body, boolean hedge) {
+        Upstream from(boolean hedge) {
+            return new Upstream(status, headers, body, hedge);
+        }
+
+        Upstream withBody(Flux<byte[]> body) {
+            return new Upstream(status, headers, body, hedge);
+        }
+    }
+
+    private static final class RouteHedging {
+        // a burst of slow responses may spend at most this many hedges at once
+        private static final double MAX_TOKENS = 10;
+
+        final Counter requests;
+        final Counter sent;
+        final Counter wins;
+        final Counter budgetExhausted;
+        final Counter concurrencyLimited;
+        final LatencyWindow latencies = new LatencyWindow(1024);
+        private final double ratio;
+        private double tokens;
+
+        RouteHedging(Counter requests, Counter sent, Counter wins, Counter budgetExhausted,
+                     Counter concurrencyLimited, double ratio) {
+            this.requests = requests;
+            this.sent = sent;
+            this.wins = wins;
+            this.budgetExhausted = budgetExhausted;
+            this.concurrencyLimited = concurrencyLimited;
+            this.ratio = ratio;
+        }
+
+        /** Spends one token of the budget, if there is one. */
+        synchronized boolean tryHedge() {
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        /** Every eligible request adds {@code ratio} of a token. */
+        synchronized void earn() {
+            tokens = Math.min(MAX_TOKENS, tokens + ratio);
+        }
+    }
+
+    /** Ring buffer of recent latencies; the percentile is recomputed every 64 samples. */
+    private static final class LatencyWindow {
+        private static final int MIN_SAMPLES = 100;
+
+        private final long[] samples;
+        private int next;
+        private int count;
+        private long sinceUpdate;
+        private long percentileNanos = -1;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+            sinceUpdate++;
+        }
+
+        /** Hedge delay: the route's recent latency percentile; {@code null} (no hedge) until enough samples exist. */
+        synchronized Duration delay(double percentile, Duration minDelay) {
+            if (count < MIN_SAMPLES) return null;
+            if (percentileNanos < 0 || sinceUpdate >= 64) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                percentileNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+                sinceUpdate = 0;
+            }
+            Duration delay = Duration.ofNanos(percentileNanos);
+            return delay.compareTo(minDelay) < 0 ? minDelay : delay;
+        }
+    }
+}
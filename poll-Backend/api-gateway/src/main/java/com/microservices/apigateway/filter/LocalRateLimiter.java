@@ -0,0 +1,137 @@
+package com.microservices.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process token buckets that {@link RateLimitFilter} falls back to while the limits-service breaker is
+ * open or half-open, instead of letting everything through or rejecting everyone.
+ * <p>
+ * Rates are seeded from limits-service itself: every answer it gives records the bucket size of its
+ * rate-limit class and caller type. The degraded bucket holds {@code gateway.rate-limit.degraded.fraction}
+ * of that and refills at the same number of tokens per second; a class never seen since startup uses
+ * {@code default-limit}. Limits are per gateway instance, so the fraction should leave room for the
+ * number of instances running.
+ * <p>
+ * Time spent degraded is the {@code limits.degraded.time} counter (seconds); {@code limits.degraded} is 1
+ * while degraded.
+ */
+@Component
+public class LocalRateLimiter {
+
+    public record Decision(boolean allowed, int remaining, int limit) {}
+
+    private final double fraction;
+    private final int defaultLimit;
+    private final boolean enabled;
+
+    // last bucket size reported by limits-service, per "<class>::<user|anon>"
+    private final ConcurrentMap<String, Integer> knownLimits = new ConcurrentHashMap<>();
+    private final Cache<String, Bucket> buckets;
+    private final Counter allowedCounter;
+    private final Counter deniedCounter;
+
+    // guarded by this
+    private long degradedSince = -1;
+    private long degradedNanos;
+
+    public LocalRateLimiter(
+            @Value("${gateway.rate-limit.degraded.enabled:true}") boolean enabled,
+            @Value("${gateway.rate-limit.degraded.fraction:0.25}") double fraction,
+            @Value("${gateway.rate-limit.degraded.default-limit:20}") int defaultLimit,
+            @Value("${gateway.rate-limit.degraded.max-keys:100000}") long maxKeys,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.fraction = Math.max(0.0, Math.min(1.0, fraction));
+        this.defaultLimit = Math.max(1, defaultLimit);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(2))
+                .build();
+        this.allowedCounter = meterRegistry.counter("limits.degraded.requests", "allowed", "true");
+        this.deniedCounter = meterRegistry.counter("limits.degraded.requests", "allowed", "false");
+        FunctionCounter.builder("limits.degraded.time", this, l -> l.degradedSeconds())
+                .description("Seconds spent limiting locally because limits-service was unavailable")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("limits.degraded", this, l -> l.isDegraded() ? 1 : 0)
+                .description("1 while rate limits are enforced locally")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /** Records the bucket size limits-service reported for the class and caller type. */
+    public void learn(String limitClass, String key, int limit) {
+        if (limit > 0) knownLimits.put(seedKey(limitClass, key), limit);
+    }
+
+    public Decision tryConsume(String key, String limitClass) {
+        int known = knownLimits.getOrDefault(seedKey(limitClass, key), defaultLimit);
+        int capacity = Math.max(1, (int) Math.floor(known * fraction));
+        Bucket bucket = buckets.get(key + "::" + limitClass, k -> new Bucket(capacity));
+        Decision decision = bucket.tryConsume(capacity);
+        (decision.allowed() ? allowedCounter : deniedCounter).increment();
+        return decision;
+    }
+
+    /** Called on breaker transitions; buckets start full on every entry into degraded mode. */
+    public synchronized void setDegraded(boolean degraded) {
+        long now = System.nanoTime();
+        if (degraded && degradedSince < 0) {
+            degradedSince = now;
+            buckets.invalidateAll();
+        } else if (!degraded && degradedSince >= 0) {
+            degradedNanos += now - degradedSince;
+            degradedSince = -1;
+        }
+    }
+
+    public synchronized boolean isDegraded() {
+        return degradedSince >= 0;
+    }
+
+    private synchronized double degradedSeconds() {
+        long total = degradedNanos + (degradedSince >= 0 ? System.nanoTime() - degradedSince : 0);
+        return total / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static String seedKey(String limitClass, String key) {
+        return limitClass + (key.startsWith("user:") ? "::user" : "::anon");
+    }
+
+    /** Refills {@code capacity} tokens per second; capacity follows the latest seed. */
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        Bucket(int capacity) {
+            this.tokens = capacity;
+        }
+
+        synchronized Decision tryConsume(int capacity) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e9 * capacity);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return new Decision(true, (int) tokens, capacity);
+            }
+            return new Decision(false, 0, capacity);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservices.apigateway.config.RoutePolicy;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
@@ -12,17 +14,18 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
-import reactor.netty.http.client.HttpClient;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
@@ -33,6 +36,7 @@ import java.util.concurrent.TimeUnit;
 /**
  * Hardened RateLimitFilter delegates rate checks to the external limits-service.
  * It supports timeout, a circuit breaker, local caching, metrics and configurable fail-open policy.
+ * While the breaker is open or half-open, requests are limited by {@link LocalRateLimiter} instead.
  */
 @Component
 public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
@@ -40,6 +44,8 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
     public static class Config { }
 
     private final WebClient webClient;
+    private final RequestContextFilter contexts;
+    private final LocalRateLimiter local;
     private final ObjectMapper mapper = new ObjectMapper();
     private final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
 
@@ -56,23 +62,20 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
     private final Counter cacheMissCounter;
 
     public RateLimitFilter(
-            @Value("${limits.service.url:http://localhost:8082}") String limitsServiceUrl,
-            @Value("${limits.service.timeout-ms:250}") long timeoutMs,
+            @Qualifier("limitsWebClient") WebClient limitsWebClient,
             @Value("${limits.service.fail-open:true}") boolean failOpen,
             @Value("${limits.service.cache-ttl-ms:500}") long cacheTtlMs,
-            MeterRegistry meterRegistry
+            MeterRegistry meterRegistry,
+            RequestContextFilter contexts,
+            LocalRateLimiter local
     ) {
         super(Config.class);
+        this.contexts = contexts;
+        this.local = local;
         this.failOpen = failOpen;
 
-        // Reactor Netty HttpClient with response timeout
-        HttpClient httpClient = HttpClient.create()
-                .responseTimeout(Duration.ofMillis(timeoutMs));
-
-        this.webClient = WebClient.builder()
-                .baseUrl(limitsServiceUrl)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .build();
+        // pooled, load-balanced client (LimitsClientConfiguration)
+        this.webClient = limitsWebClient;
 
         // Small local cache for allowed responses
         this.cache = Caffeine.newBuilder()
@@ -88,6 +91,9 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
                 .slidingWindowSize(20)
                 .build();
         this.circuitBreaker = CircuitBreaker.of("limitsService", cbConfig);
+        // open and half-open both mean most checks are not reaching limits-service
+        this.circuitBreaker.getEventPublisher().onStateTransition(event -> local.setDegraded(
+                event.getStateTransition().getToState() != CircuitBreaker.State.CLOSED));
 
         this.latencyTimer = meterRegistry.timer("limits.request.latency");
 
@@ -105,41 +111,36 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
             var req = exchange.getRequest();
             var path = req.getURI().getPath();
 
-            String userId = req.getHeaders().getFirst("X-User-Id");
-            String key = (userId != null && !userId.isBlank()) ? ("user:" + userId) : ("ip:" + exchange.getRequest().getRemoteAddress());
-            String cacheKey = key + "::" + path;
+            GatewayRequestContext context = contexts.resolve(exchange);
+            RoutePolicy policy = context.policy();
+            if (!policy.rateLimited()) {
+                exchange.getAttributes().put(RateLimitOutcome.ATTR, RateLimitOutcome.SKIPPED);
+                return chain.filter(exchange);
+            }
+            String limitClass = policy.limitClass();
+
+            // verified token subject, never a client-sent header; anonymous callers by network identity
+            String key = context.rateLimitKey();
+            // limits-service buckets by class, so every path in the class shares one cache entry
+            String cacheKey = key + "::" + limitClass;
 
             // check cache
             JsonNode cached = cache.getIfPresent(cacheKey);
             if (cached != null) {
                 cacheHitCounter.increment();
-                boolean allowed = cached.path("allowed").asBoolean(true);
-                int remaining = cached.path("remaining").asInt(-1);
-                int limit = cached.path("limit").asInt(-1);
-                int reset = cached.path("resetSeconds").asInt(-1);
+                boolean allowed = addLimitHeaders(exchange, cached);
                 if (!allowed) {
                     deniedCounter.increment();
                     log.warn("Rate limit (cached) exceeded for {} on {}", key, path);
-                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-                    exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-                    Map<String,Object> resp = Map.of("success", false, "message", "Rate limit exceeded");
-                    byte[] bytes;
-                    try { bytes = mapper.writeValueAsString(resp).getBytes(StandardCharsets.UTF_8); } catch (Exception e) { bytes = ("{\"success\":false,\"message\":\"Rate limit exceeded\"}").getBytes(StandardCharsets.UTF_8); }
-                    if (remaining >= 0) exchange.getResponse().getHeaders().add("X-Rate-Remaining", String.valueOf(remaining));
-                    if (limit >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Limit", String.valueOf(limit));
-                    if (reset >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Reset", String.valueOf(reset));
-                    return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
                 }
-                if (remaining >= 0) exchange.getResponse().getHeaders().add("X-Rate-Remaining", String.valueOf(remaining));
-                if (limit >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Limit", String.valueOf(limit));
-                if (reset >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Reset", String.valueOf(reset));
-                return chain.filter(exchange);
+                return proceed(allowed ? RateLimitOutcome.ALLOWED : RateLimitOutcome.DENIED, exchange, chain);
             }
             cacheMissCounter.increment();
 
             Map<String,String> body = new HashMap<>();
             body.put("key", key);
             body.put("route", path);
+            body.put("limitClass", limitClass);
 
             // Build the reactive call and decorate with circuit breaker operator
             Mono<JsonNode> call = webClient.post()
@@ -151,50 +152,94 @@ public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilte
                     .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
 
             long start = System.nanoTime();
-            return call.flatMap(json -> {
-                latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
-                boolean allowed = json.path("allowed").asBoolean(true);
-                int remaining = json.path("remaining").asInt(-1);
-                int limit = json.path("limit").asInt(-1);
-                int reset = json.path("resetSeconds").asInt(-1);
-                if (!allowed) {
-                    // cache deny and respond 429
-                    cache.put(cacheKey, json);
-                    deniedCounter.increment();
-                    log.warn("Rate limit exceeded for key {} on route {}", key, path);
-                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-                    exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-                    Map<String,Object> resp = Map.of("success", false, "message", "Rate limit exceeded");
-                    byte[] bytes;
-                    try { bytes = mapper.writeValueAsString(resp).getBytes(StandardCharsets.UTF_8); } catch (Exception e) { bytes = ("{\"success\":false,\"message\":\"Rate limit exceeded\"}").getBytes(StandardCharsets.UTF_8); }
-                    if (remaining >= 0) exchange.getResponse().getHeaders().add("X-Rate-Remaining", String.valueOf(remaining));
-                    if (limit >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Limit", String.valueOf(limit));
-                    if (reset >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Reset", String.valueOf(reset));
-                    return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
-                }
-                allowedCounter.increment();
-                if (remaining >= 0) exchange.getResponse().getHeaders().add("X-Rate-Remaining", String.valueOf(remaining));
-                if (limit >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Limit", String.valueOf(limit));
-                if (reset >= 0) exchange.getResponse().getHeaders().add("X-Rate-Limit-Reset", String.valueOf(reset));
-                // cache positive response (so repeated calls in TTL don't hit limits-service)
-                cache.put(cacheKey, json);
-                return chain.filter(exchange);
-            }).onErrorResume(ex -> {
-                // metrics increment could be added here
-                errorCounter.increment();
-                log.error("Limits service check failed: {}", ex.toString());
-                if (failOpen) {
-                    log.warn("Fail-open enabled: allowing request despite limits-service failure");
-                    return chain.filter(exchange);
-                }
-                // fail-closed: return 503 or 429; we'll return 503 Service Unavailable
-                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
-                exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-                Map<String,Object> resp = Map.of("success", false, "message", "Limits service unavailable");
-                byte[] bytes;
-                try { bytes = mapper.writeValueAsString(resp).getBytes(StandardCharsets.UTF_8); } catch (Exception e) { bytes = ("{\"success\":false,\"message\":\"Limits service unavailable\"}").getBytes(StandardCharsets.UTF_8); }
-                return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
-            });
+            // only the limits call is recovered: errors from the route itself must not be taken for
+            // limits-service failures, nor send the request downstream a second time
+            return call
+                    .map(json -> {
+                        latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return checked(exchange, json, key, limitClass, cacheKey, path);
+                    })
+                    .onErrorResume(ex -> Mono.just(unchecked(exchange, ex, key, limitClass, path)))
+                    .flatMap(outcome -> proceed(outcome, exchange, chain));
+        };
+    }
+
+    /** Applies a limits-service answer: learns the limit, caches the answer and sets the rate headers. */
+    private RateLimitOutcome checked(ServerWebExchange exchange, JsonNode json, String key, String limitClass,
+                                     String cacheKey, String path) {
+        local.learn(limitClass, key, json.path("limit").asInt(-1));
+        // cache the answer, allowed or denied, so repeated calls within the TTL don't hit limits-service
+        cache.put(cacheKey, json);
+        if (!addLimitHeaders(exchange, json)) {
+            deniedCounter.increment();
+            log.warn("Rate limit exceeded for key {} on route {}", key, path);
+            return RateLimitOutcome.DENIED;
+        }
+        allowedCounter.increment();
+        return RateLimitOutcome.ALLOWED;
+    }
+
+    /** The limits call failed or was not permitted by the breaker. */
+    private RateLimitOutcome unchecked(ServerWebExchange exchange, Throwable ex, String key, String limitClass,
+                                       String path) {
+        errorCounter.increment();
+        boolean breakerOpen = ex instanceof CallNotPermittedException
+                || circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+        if (breakerOpen && local.enabled()) {
+            // degraded mode: conservative in-process limits instead of none or all
+            return limitLocally(exchange, key, limitClass, path);
+        }
+        log.error("Limits service check failed: {}", ex.toString());
+        if (failOpen) {
+            log.warn("Fail-open enabled: allowing request despite limits-service failure");
+            return RateLimitOutcome.FAIL_OPEN;
+        }
+        // fail-closed: 503 Service Unavailable
+        return RateLimitOutcome.UNAVAILABLE;
+    }
+
+    /** Forwards the request, or answers it with 429/503; the only place the chain is continued. */
+    private Mono<Void> proceed(RateLimitOutcome outcome, ServerWebExchange exchange, GatewayFilterChain chain) {
+        exchange.getAttributes().put(RateLimitOutcome.ATTR, outcome);
+        return switch (outcome) {
+            case DENIED, LOCAL_DENIED -> reject(exchange, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded");
+            case UNAVAILABLE -> reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, "Limits service unavailable");
+            default -> chain.filter(exchange);
         };
     }
+
+    /** Copies the rate headers of a limits-service answer to the response; returns whether it allows the request. */
+    private static boolean addLimitHeaders(ServerWebExchange exchange, JsonNode json) {
+        int remaining = json.path("remaining").asInt(-1);
+        int limit = json.path("limit").asInt(-1);
+        int reset = json.path("resetSeconds").asInt(-1);
+        var headers = exchange.getResponse().getHeaders();
+        if (remaining >= 0) headers.add("X-Rate-Remaining", String.valueOf(remaining));
+        if (limit >= 0) headers.add("X-Rate-Limit-Limit", String.valueOf(limit));
+        if (reset >= 0) headers.add("X-Rate-Limit-Reset", String.valueOf(reset));
+        return json.path("allowed").asBoolean(true);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String message) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] bytes;
+        try {
+            bytes = mapper.writeValueAsBytes(Map.of("success", false, "message", message));
+        } catch (Exception e) {
+            bytes = ("{\"success\":false,\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    private RateLimitOutcome limitLocally(ServerWebExchange exchange, String key, String limitClass, String path) {
+        LocalRateLimiter.Decision decision = local.tryConsume(key, limitClass);
+        var headers = exchange.getResponse().getHeaders();
+        headers.add("X-Rate-Remaining", String.valueOf(decision.remaining()));
+        headers.add("X-Rate-Limit-Limit", String.valueOf(decision.limit()));
+        headers.add("X-Rate-Limit-Reset", "1");
+        if (decision.allowed()) return RateLimitOutcome.LOCAL_ALLOWED;
+        log.debug("Local rate limit exceeded for {} on {}", key, path);
+        return RateLimitOutcome.LOCAL_DENIED;
+    }
 }
@@ -0,0 +1,27 @@
+package com.microservices.apigateway.filter;
+
+/**
+ * What {@link RateLimitFilter} decided for a request, stored under {@link #ATTR} for the access log.
+ */
+public enum RateLimitOutcome {
+    ALLOWED,
+    DENIED,
+    /** limits-service failed or the breaker is open; the request was let through (fail-open). */
+    FAIL_OPEN,
+    /** limits-service failed and fail-open is disabled; 503 returned. */
+    UNAVAILABLE,
+    /** limits-service unreachable (breaker open or half-open); allowed by the local fallback limiter. */
+    LOCAL_ALLOWED,
+    /** limits-service unreachable; 429 from the local fallback limiter. */
+    LOCAL_DENIED,
+    /** The matched rule has no rate-limit class. */
+    SKIPPED;
+
+    public static final String ATTR = RateLimitOutcome.class.getName();
+
+    private final String label = name().toLowerCase().replace('_', '-');
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,120 @@
+package com.microservices.apigateway.filter;
+
+import com.microservices.apigateway.config.RouteSecurityMatcher;
+import com.microservices.apigateway.util.ClientIdentityResolver;
+import com.microservices.apigateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the {@link GatewayRequestContext} of a routed request once, before any route filter runs:
+ * route policy, bearer-token identity and rate-limit key.
+ * <p>
+ * Identity headers sent by the client ({@code X-User-Id}, {@code X-User-Email}, {@code X-User-Roles}) are
+ * always removed and, for a valid token, replaced by the verified claims, so neither the rate limiter
+ * nor a downstream service can be handed a forged identity. {@code AuthFilter} and {@code RateLimitFilter}
+ * only read the precomputed context.
+ */
+@Component
+public class RequestContextFilter implements GlobalFilter, Ordered {
+
+    public static final String HDR_USER_ID = "X-User-Id";
+    public static final String HDR_USER_EMAIL = "X-User-Email";
+    public static final String HDR_USER_ROLES = "X-User-Roles";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestContextFilter.class);
+
+    private final RouteSecurityMatcher matcher;
+    private final ClientIdentityResolver identity;
+    private final JwtUtil jwtUtil;
+
+    public RequestContextFilter(RouteSecurityMatcher matcher, ClientIdentityResolver identity, JwtUtil jwtUtil) {
+        this.matcher = matcher;
+        this.identity = identity;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public int getOrder() {
+        // right after the access log, ahead of every route filter
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GatewayRequestContext context = resolve(exchange);
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        boolean spoofed = headers.containsKey(HDR_USER_ID) || headers.containsKey(HDR_USER_EMAIL)
+                || headers.containsKey(HDR_USER_ROLES);
+        if (!spoofed && !context.authenticated()) {
+            return chain.filter(exchange);
+        }
+
+        var user = context.user();
+        var request = exchange.getRequest().mutate().headers(h -> {
+            h.remove(HDR_USER_ID);
+            h.remove(HDR_USER_EMAIL);
+            h.remove(HDR_USER_ROLES);
+            if (user != null) {
+                h.set(HDR_USER_ID, user.id());
+                h.set(HDR_USER_EMAIL, user.email());
+                h.set(HDR_USER_ROLES, user.roles());
+            }
+        }).build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    /** Context for the exchange, computed on first use and then read from the exchange attributes. */
+    public GatewayRequestContext resolve(ServerWebExchange exchange) {
+        GatewayRequestContext context = exchange.getAttribute(GatewayRequestContext.ATTR);
+        if (context != null) return context;
+
+        GatewayRequestContext.User user = null;
+        String authError = null;
+        String auth = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (auth != null && auth.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtUtil.validateAndGetClaims(auth.substring(7));
+                String sub = claims.getSubject();            // user id
+                String email = (String) claims.get("email");
+                String roles = (String) claims.get("roles");
+                user = new GatewayRequestContext.User(sub == null ? "" : sub, email == null ? "" : email,
+                        roles == null ? "" : roles);
+            } catch (ExpiredJwtException eje) {
+                authError = "Token expired";
+            } catch (SignatureException | SecurityException se) {
+                authError = "Invalid token signature";
+            } catch (MalformedJwtException mje) {
+                authError = "Malformed token";
+            } catch (UnsupportedJwtException uje) {
+                authError = "Unsupported token";
+            } catch (IllegalArgumentException | JwtException e) {
+                authError = "Invalid token";
+            } catch (Exception e) {
+                authError = "Invalid or expired token";
+            }
+            if (authError != null) {
+                log.debug("Rejected token for {}: {}", exchange.getRequest().getURI(), authError);
+            }
+        }
+
+        // a token without a subject still authenticates, but cannot own a per-user bucket
+        String rateLimitKey = user != null && !user.id().isBlank() ? "user:" + user.id() : identity.resolve(exchange);
+        context = new GatewayRequestContext(matcher.resolve(exchange), user, authError, rateLimitKey);
+        exchange.getAttributes().put(GatewayRequestContext.ATTR, context);
+        return context;
+    }
+}
@@ -0,0 +1,225 @@
+package com.microservices.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Passive health tracking of upstream instances behind {@code lb://} routes, so a failing instance stops
+ * receiving traffic within seconds instead of when its Eureka lease expires.
+ * <p>
+ * Every exchange is classified from the load-balancer lifecycle callbacks: a 5xx response or a failed
+ * exchange (connect error, timeout) is an error. An instance is ejected after
+ * {@code gateway.outlier.consecutive-errors} errors in a row, or when the error rate over its last
+ * {@code window-size} outcomes reaches {@code error-rate-percent}.
+ * An ejection lasts {@code base-ejection-seconds} × 2^(previous ejections), capped at
+ * {@code max-ejection-seconds}; a full window of successes after returning forgives one ejection.
+ * At most {@code max-ejection-percent} of a service's instances are ejected at once, so a service-wide
+ * failure never empties the pool.
+ * <p>
+ * Ejected instances are removed from the instance list by {@link OutlierEjectingServiceInstanceListSupplier}.
+ * Metrics: {@code gateway.outlier.ejections{service,reason}}, {@code gateway.outlier.ejected{service}}.
+ */
+@Component
+public class OutlierDetector implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final Logger log = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int consecutiveErrors;
+    private final int windowSize;
+    private final double errorRate;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final double maxEjectionPercent;
+
+    private final ConcurrentMap<String, Service> services = new ConcurrentHashMap<>();
+
+    public OutlierDetector(MeterRegistry meterRegistry,
+                           @Value("${gateway.outlier.consecutive-errors:5}") int consecutiveErrors,
+                           @Value("${gateway.outlier.window-size:20}") int windowSize,
+                           @Value("${gateway.outlier.error-rate-percent:50}") double errorRatePercent,
+                           @Value("${gateway.outlier.base-ejection-seconds:10}") long baseEjectionSeconds,
+                           @Value("${gateway.outlier.max-ejection-seconds:300}") long maxEjectionSeconds,
+                           @Value("${gateway.outlier.max-ejection-percent:50}") double maxEjectionPercent) {
+        this.meterRegistry = meterRegistry;
+        this.consecutiveErrors = Math.max(1, consecutiveErrors);
+        this.windowSize = Math.max(1, windowSize);
+        this.errorRate = errorRatePercent / 100.0;
+        this.baseEjectionNanos = Duration.ofSeconds(baseEjectionSeconds).toNanos();
+        this.maxEjectionNanos = Duration.ofSeconds(Math.max(baseEjectionSeconds, maxEjectionSeconds)).toNanos();
+        this.maxEjectionPercent = Math.max(0, Math.min(100, maxEjectionPercent));
+    }
+
+    /** The instances that are not currently ejected; all of them if that would leave none. */
+    public List<ServiceInstance> available(String serviceId, List<ServiceInstance> instances) {
+        Service service = service(serviceId);
+        long now = System.nanoTime();
+        List<ServiceInstance> available = new ArrayList<>(instances.size());
+        synchronized (service) {
+            service.size = instances.size();
+            for (ServiceInstance instance : instances) {
+                Health health = service.instances.get(UpstreamStats.key(instance));
+                if (health == null || !health.ejected(now)) available.add(instance);
+            }
+        }
+        return available.isEmpty() ? instances : available;
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) return;
+        boolean error;
+        switch (completion.status()) {
+            case FAILED -> error = true;
+            case SUCCESS -> {
+                ResponseData response = completion.getClientResponse();
+                HttpStatusCode status = response == null ? null : response.getHttpStatus();
+                error = status != null && status.is5xxServerError();
+            }
+            default -> {
+                return;
+            }
+        }
+        record(lbResponse.getServer(), error);
+    }
+
+    /** One outcome of an exchange with the instance; also fed by calls made outside the load balancer (hedges). */
+    public void record(ServiceInstance instance, boolean error) {
+        Service service = service(instance.getServiceId());
+        long now = System.nanoTime();
+        String reason;
+        synchronized (service) {
+            Health health = service.instances.computeIfAbsent(UpstreamStats.key(instance), k -> new Health(windowSize));
+            if (health.ejected(now)) return;   // late responses of requests sent before the ejection
+            reason = health.record(error);
+            if (reason == null) return;
+            if (service.ejectedCount(now) + 1 > Math.floor(service.size * maxEjectionPercent / 100.0)) {
+                Counter.builder("gateway.outlier.ejections.skipped")
+                        .description("Ejections not applied because of gateway.outlier.max-ejection-percent")
+                        .tag("service", instance.getServiceId())
+                        .register(meterRegistry)
+                        .increment();
+                return;
+            }
+            long duration = Math.min(maxEjectionNanos, baseEjectionNanos << Math.min(20, health.ejections));
+            health.eject(now + duration);
+            log.warn("Ejected {} for {} s ({})", UpstreamStats.key(instance), Duration.ofNanos(duration).toSeconds(), reason);
+        }
+        Counter.builder("gateway.outlier.ejections")
+                .description("Upstream instances ejected by passive health checking")
+                .tags("service", instance.getServiceId(), "reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Service service(String serviceId) {
+        return services.computeIfAbsent(serviceId, id -> {
+            Service service = new Service();
+            Gauge.builder("gateway.outlier.ejected", service, s -> {
+                        synchronized (s) {
+                            return s.ejectedCount(System.nanoTime());
+                        }
+                    })
+                    .description("Upstream instances currently ejected")
+                    .tag("service", id)
+                    .register(meterRegistry);
+            return service;
+        });
+    }
+
+    /** Guarded by its own monitor. */
+    private static final class Service {
+        final ConcurrentMap<String, Health> instances = new ConcurrentHashMap<>();
+        int size;
+
+        int ejectedCount(long now) {
+            int n = 0;
+            for (Health health : instances.values()) {
+                if (health.ejected(now)) n++;
+            }
+            return n;
+        }
+    }
+
+    private final class Health {
+        private final boolean[] window;
+        private int next;
+        private int filled;
+        private int errors;
+        private int consecutive;
+        private int successesSinceReturn;
+        private long ejectedUntil;
+        int ejections;
+
+        Health(int windowSize) {
+            this.window = new boolean[windowSize];
+        }
+
+        boolean ejected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        /** Records one outcome; returns the ejection reason if the instance should be ejected now. */
+        String record(boolean error) {
+            if (filled == window.length && window[next]) errors--;
+            window[next] = error;
+            next = (next + 1) % window.length;
+            if (filled < window.length) filled++;
+            if (error) {
+                errors++;
+                consecutive++;
+                successesSinceReturn = 0;
+            } else {
+                consecutive = 0;
+                if (ejections > 0 && ++successesSinceReturn >= window.length) {
+                    ejections--;
+                    successesSinceReturn = 0;
+                }
+            }
+            if (consecutive >= consecutiveErrors) return "consecutive-errors";
+            if (filled == window.length && errors >= errorRate * window.length) return "error-rate";
+            return null;
+        }
+
+        void eject(long until) {
+            ejectedUntil = until;
+            ejections++;
+            // start clean when it comes back
+            Arrays.fill(window, false);
+            next = 0;
+            filled = 0;
+            errors = 0;
+            consecutive = 0;
+            successesSinceReturn = 0;
+        }
+    }
+}
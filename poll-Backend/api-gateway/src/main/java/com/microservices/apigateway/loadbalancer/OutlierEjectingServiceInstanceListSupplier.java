@@ -0,0 +1,33 @@
+package com.microservices.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Drops instances currently ejected by {@link OutlierDetector}. Sits on top of the caching supplier so
+ * ejections take effect on the next request, not on the next registry refresh.
+ */
+public class OutlierEjectingServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final OutlierDetector detector;
+
+    public OutlierEjectingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, OutlierDetector detector) {
+        super(delegate);
+        this.detector = detector;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(instances -> detector.available(getServiceId(), instances));
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(instances -> detector.available(getServiceId(), instances));
+    }
+}
@@ -0,0 +1,22 @@
+package com.microservices.apigateway.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Per-client instance list: discovery, cached, minus the instances {@link OutlierDetector} has ejected.
+ * Like {@link PeakEwmaLoadBalancerConfiguration}, only ever loaded into a client's child context.
+ */
+public class OutlierEjectionConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier outlierEjectingServiceInstanceListSupplier(
+            ConfigurableApplicationContext context, OutlierDetector detector) {
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new OutlierEjectingServiceInstanceListSupplier(delegate, detector))
+                .build(context);
+    }
+}
@@ -0,0 +1,104 @@
+package com.microservices.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over {@link UpstreamStats}: two distinct instances are drawn at random and the one
+ * with the lower latency × (in-flight + 1) cost wins. A slow instance (GC pause, saturated pool) sheds
+ * its share within a few responses, without the herding a strict least-loaded pick causes across
+ * several gateways.
+ * <p>
+ * Instances that appear after the first instance list was seen are warming up: their cost is divided by
+ * a weight that ramps linearly from {@code warm-up-min-weight} to 1 over {@code warm-up-seconds}, so a
+ * fresh JVM is not handed a full share while it is still JIT-compiling and filling its pools.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final UpstreamStats stats;
+    private final long warmUpNanos;
+    private final double minWeight;
+
+    private final ConcurrentHashMap<String, Long> firstSeen = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    public PeakEwmaLoadBalancer(String serviceId,
+                                ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                UpstreamStats stats,
+                                Duration warmUp,
+                                double minWeight) {
+        this.serviceId = serviceId;
+        this.suppliers = suppliers;
+        this.stats = stats;
+        this.warmUpNanos = warmUp.toNanos();
+        this.minWeight = Math.max(0.01, Math.min(1.0, minWeight));
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) return new EmptyResponse();
+        long now = System.nanoTime();
+        track(instances, now);
+        if (instances.size() == 1) return new DefaultResponse(instances.get(0));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int n = instances.size();
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if (j >= i) j++;
+        ServiceInstance a = instances.get(i);
+        ServiceInstance b = instances.get(j);
+        return new DefaultResponse(cost(a, now) <= cost(b, now) ? a : b);
+    }
+
+    private double cost(ServiceInstance instance, long now) {
+        return stats.get(instance).load() / weight(instance, now);
+    }
+
+    private double weight(ServiceInstance instance, long now) {
+        if (warmUpNanos <= 0) return 1.0;
+        Long since = firstSeen.get(UpstreamStats.key(instance));
+        if (since == null) return 1.0;
+        double progress = (double) (now - since) / warmUpNanos;
+        return progress >= 1 ? 1.0 : minWeight + (1 - minWeight) * progress;
+    }
+
+    /** Instances in the first list are treated as warm; later arrivals start their ramp when first seen. */
+    private void track(List<ServiceInstance> instances, long now) {
+        long start = seeded ? now : now - warmUpNanos;
+        for (ServiceInstance instance : instances) {
+            firstSeen.putIfAbsent(UpstreamStats.key(instance), start);
+        }
+        if (!seeded) seeded = true;
+        if (firstSeen.size() > instances.size() * 2 + 16) {
+            // forget departed instances so one that comes back warms up again
+            var current = instances.stream().map(UpstreamStats::key).toList();
+            firstSeen.keySet().retainAll(current);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PeakEwmaLoadBalancer[" + serviceId + "]";
+    }
+}
@@ -0,0 +1,37 @@
+package com.microservices.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Per-client load-balancer configuration, referenced from {@code @LoadBalancerClient}. Deliberately not a
+ * {@code @Configuration}: it is instantiated in each client's child context only, never by the component
+ * scan of the gateway itself. With {@code gateway.loadbalancer.strategy=round-robin} the bean is skipped
+ * and Spring Cloud's default round robin takes its place.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.loadbalancer.strategy", havingValue = "peak-ewma", matchIfMissing = true)
+    public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory clientFactory,
+            UpstreamStats stats,
+            @Value("${gateway.loadbalancer.warm-up-seconds:30}") long warmUpSeconds,
+            @Value("${gateway.loadbalancer.warm-up-min-weight:0.1}") double warmUpMinWeight) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(name,
+                clientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+                stats,
+                Duration.ofSeconds(warmUpSeconds),
+                warmUpMinWeight);
+    }
+}
@@ -0,0 +1,149 @@
+package com.microservices.apigateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-instance request statistics for {@code lb://} routes, fed by the gateway's load-balancer lifecycle
+ * callbacks (a lifecycle bean in the main context applies to every load-balanced service).
+ * <p>
+ * Latency is a peak-sensitive EWMA: a response slower than the current estimate replaces it outright, a
+ * faster one is blended in with weight {@code 1 - e^(-Δt/τ)}, and the estimate also decays towards zero
+ * while no responses arrive, so an instance that was slow gets probed again after a few τ
+ * ({@code gateway.loadbalancer.decay-seconds}). Failed exchanges (connect errors, timeouts) count with
+ * their elapsed time.
+ * <p>
+ * Instances unused for 10 minutes are forgotten together with their gauges
+ * ({@code gateway.upstream.latency.ewma}, {@code gateway.upstream.inflight}).
+ */
+@Component
+public class UpstreamStats implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final MeterRegistry meterRegistry;
+    private final double decayNanos;
+    private final Cache<String, InstanceStats> instances;
+
+    public UpstreamStats(MeterRegistry meterRegistry,
+                         @Value("${gateway.loadbalancer.decay-seconds:10}") double decaySeconds) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = Math.max(0.001, decaySeconds) * 1e9;
+        this.instances = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .removalListener((String key, InstanceStats stats, RemovalCause cause) -> {
+                    if (stats != null) stats.meters.forEach(meterRegistry::remove);
+                })
+                .build();
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        return instances.get(key(instance), k -> new InstanceStats(instance, k));
+    }
+
+    static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || !lbResponse.hasServer()) return;
+        if (request.getContext() instanceof TimedRequestContext timed && timed.getRequestStartTime() == 0) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        get(lbResponse.getServer()).begin();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) return;
+        long now = System.nanoTime();
+        long started = completion.getLoadBalancerRequest() != null
+                && completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+                ? timed.getRequestStartTime() : 0;
+        get(lbResponse.getServer()).end(started > 0 ? now - started : -1, now);
+    }
+
+    /** Mutable statistics of one upstream instance. */
+    public final class InstanceStats {
+
+        // a never-measured instance with requests outstanding looks this slow (ns) per request
+        private static final double UNMEASURED_PENALTY = 1e9;
+
+        private final List<Meter> meters;
+        private int inflight;
+        private double cost;          // ns
+        private long stamp = System.nanoTime();
+
+        InstanceStats(ServiceInstance instance, String key) {
+            String service = instance.getServiceId();
+            String address = key.substring(key.indexOf('@') + 1);
+            this.meters = List.of(
+                    Gauge.builder("gateway.upstream.latency.ewma", this, s -> s.latencyNanos() / 1e6)
+                            .description("Peak EWMA response time of the upstream instance")
+                            .baseUnit("milliseconds")
+                            .tags("service", service, "instance", address)
+                            .register(meterRegistry),
+                    Gauge.builder("gateway.upstream.inflight", this, InstanceStats::inflight)
+                            .description("Requests outstanding to the upstream instance")
+                            .tags("service", service, "instance", address)
+                            .register(meterRegistry));
+        }
+
+        public synchronized void begin() {
+            inflight++;
+        }
+
+        public synchronized void end(long rttNanos, long now) {
+            inflight = Math.max(0, inflight - 1);
+            if (rttNanos >= 0) observe(rttNanos, now);
+        }
+
+        /** Expected cost of sending one more request: latency estimate × (outstanding + 1). */
+        public synchronized double load() {
+            observe(0, System.nanoTime());
+            if (cost == 0 && inflight > 0) return UNMEASURED_PENALTY + inflight;
+            return cost * (inflight + 1);
+        }
+
+        public synchronized int inflight() {
+            return inflight;
+        }
+
+        synchronized double latencyNanos() {
+            observe(0, System.nanoTime());
+            return cost;
+        }
+
+        /** Peaks replace the estimate; anything lower (including 0 on reads) is blended in by elapsed time. */
+        private void observe(double rttNanos, long now) {
+            if (rttNanos > cost) {
+                cost = rttNanos;
+            } else {
+                double w = Math.exp(-Math.max(0, now - stamp) / decayNanos);
+                cost = cost * w + rttNanos * (1 - w);
+            }
+            stamp = now;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.microservices.apigateway.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.NetUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Canonical network identity of the client behind a request, used as the anonymous rate-limit key and
+ * in the access log.
+ * <p>
+ * The peer address is only replaced by an {@code X-Forwarded-For} entry when the peer is one of
+ * {@code gateway.client-identity.trusted-proxies}; the header is then walked right to left, skipping
+ * further trusted hops, so a client cannot pick its own key by sending the header itself. The source
+ * port is never part of the key. IPv6 clients are aggregated to their {@code ipv6-prefix-length}
+ * network (one /64 is one subscriber), IPv4-mapped IPv6 addresses count as IPv4.
+ * <p>
+ * Keys are interned in a bounded cache, so every in-flight request and limiter cache entry for a client
+ * shares one string; its size is the {@code gateway.client.keys} gauge.
+ */
+@Component
+public class ClientIdentityResolver {
+
+    public static final String KEY_ATTR = ClientIdentityResolver.class.getName() + ".key";
+    public static final String UNKNOWN = "ip:unknown";
+
+    // hops examined in X-Forwarded-For; a longer chain is truncated, not trusted further
+    private static final int MAX_FORWARDED_HOPS = 16;
+    private static final byte[] IPV4_MAPPED_PREFIX = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff};
+
+    private final List<Cidr> trustedProxies;
+    private final int ipv6PrefixLength;
+    private final Cache<String, String> keys;
+    private final Counter forwarded;
+
+    public ClientIdentityResolver(
+            // comma-separated CIDRs of load balancers / ingress allowed to set X-Forwarded-For
+            @Value("${gateway.client-identity.trusted-proxies:127.0.0.1/32,::1/128}") String trustedProxies,
+            @Value("${gateway.client-identity.ipv6-prefix-length:64}") int ipv6PrefixLength,
+            @Value("${gateway.client-identity.max-keys:200000}") long maxKeys,
+            MeterRegistry meterRegistry
+    ) {
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Cidr::parse)
+                .toList();
+        this.ipv6PrefixLength = Math.max(0, Math.min(128, ipv6PrefixLength));
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.forwarded = Counter.builder("gateway.client.forwarded")
+                .description("Requests whose client address was taken from X-Forwarded-For")
+                .register(meterRegistry);
+        Gauge.builder("gateway.client.keys", keys, Cache::estimatedSize)
+                .description("Distinct client identity keys seen in the last 10 minutes")
+                .register(meterRegistry);
+    }
+
+    /** Key for the exchange, resolved once and then read from the exchange attributes. */
+    public String resolve(ServerWebExchange exchange) {
+        String key = exchange.getAttribute(KEY_ATTR);
+        if (key == null) {
+            key = resolve(exchange.getRequest());
+            exchange.getAttributes().put(KEY_ATTR, key);
+        }
+        return key;
+    }
+
+    public String resolve(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        byte[] client = remote == null || remote.getAddress() == null ? null : remote.getAddress().getAddress();
+        if (client == null) return UNKNOWN;
+
+        if (isTrusted(client)) {
+            List<String> values = request.getHeaders().get("X-Forwarded-For");
+            if (values != null && !values.isEmpty()) {
+                byte[] hop = clientFromForwarded(values);
+                if (hop != null) {
+                    client = hop;
+                    forwarded.increment();
+                }
+            }
+        }
+        String key = key(client);
+        return keys.get(key, k -> k);
+    }
+
+    /** Right-most entry not added by a trusted proxy; stops at the first unparsable entry. */
+    private byte[] clientFromForwarded(List<String> values) {
+        byte[] result = null;
+        int hops = 0;
+        for (int v = values.size() - 1; v >= 0; v--) {
+            String header = values.get(v);
+            int end = header.length();
+            while (end > 0 && hops < MAX_FORWARDED_HOPS) {
+                int start = header.lastIndexOf(',', end - 1) + 1;
+                byte[] hop = parse(header.substring(start, end).trim());
+                if (hop == null) return result;
+                result = hop;
+                hops++;
+                if (!isTrusted(hop)) return hop;
+                end = start - 1;
+            }
+        }
+        return result;
+    }
+
+    private boolean isTrusted(byte[] address) {
+        byte[] normalized = unmap(address);
+        for (Cidr cidr : trustedProxies) {
+            if (cidr.contains(normalized)) return true;
+        }
+        return false;
+    }
+
+    private String key(byte[] address) {
+        byte[] a = unmap(address);
+        if (a.length == 4) {
+            return "ip:" + (a[0] & 0xff) + '.' + (a[1] & 0xff) + '.' + (a[2] & 0xff) + '.' + (a[3] & 0xff);
+        }
+        int bytes = (ipv6PrefixLength + 7) / 8;
+        byte[] network = Cidr.mask(Arrays.copyOf(a, bytes), ipv6PrefixLength);
+        return "ip6:" + HexFormat.of().formatHex(network) + '/' + ipv6PrefixLength;
+    }
+
+    /** IP literal without DNS: "a.b.c.d", "a.b.c.d:port", "v6", "[v6]" or "[v6]:port". */
+    static byte[] parse(String value) {
+        if (value.isEmpty()) return null;
+        String host = value;
+        if (host.startsWith("[")) {
+            int close = host.indexOf(']');
+            if (close < 0) return null;
+            host = host.substring(1, close);
+        } else if (host.indexOf(':') >= 0 && host.indexOf(':') == host.lastIndexOf(':')) {
+            host = host.substring(0, host.indexOf(':'));
+        }
+        return NetUtil.createByteArrayFromIpAddressString(host);
+    }
+
+    private static byte[] unmap(byte[] address) {
+        if (address.length == 16 && Arrays.equals(address, 0, 12, IPV4_MAPPED_PREFIX, 0, 12)) {
+            return Arrays.copyOfRange(address, 12, 16);
+        }
+        return address;
+    }
+
+    private record Cidr(byte[] network, int prefixLength) {
+
+        static Cidr parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            byte[] address = NetUtil.createByteArrayFromIpAddressString(slash < 0 ? cidr : cidr.substring(0, slash));
+            if (address == null) {
+                throw new IllegalStateException("Invalid gateway.client-identity.trusted-proxies entry: " + cidr);
+            }
+            address = unmap(address);
+            int bits = address.length * 8;
+            int prefix = slash < 0 ? bits : Integer.parseInt(cidr.substring(slash + 1).trim());
+            if (prefix < 0 || prefix > bits) {
+                throw new IllegalStateException("Invalid prefix length in gateway.client-identity.trusted-proxies: " + cidr);
+            }
+            return new Cidr(mask(address, prefix), prefix);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) return false;
+            return Arrays.equals(mask(address.clone(), prefixLength), network);
+        }
+
+        static byte[] mask(byte[] address, int prefixLength) {
+            for (int i = 0; i < address.length; i++) {
+                int keep = Math.max(0, Math.min(8, prefixLength - i * 8));
+                address[i] &= (byte) (0xff << (8 - keep));
+            }
+            return address;
+        }
+    }
+}
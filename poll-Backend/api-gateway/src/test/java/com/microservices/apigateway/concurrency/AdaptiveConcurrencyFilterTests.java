@@ -0,0 +1,258 @@
+package com.microservices.apigateway.concurrency;
+
+import com.microservices.apigateway.config.PriorityProperties;
+import com.microservices.apigateway.config.PriorityProperties.PriorityClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The route's limit is pinned to one permit and the queue holds two waiters, so every waiter's fate is
+ * decided by the test. Waiters get a {@link RecordingSink} in place of the {@code Mono.create} sink, so a
+ * client cancellation can be fired at any point of the WAITING / ADMITTED / GONE state machine.
+ */
+public class AdaptiveConcurrencyFilterTests {
+
+    private static final int AUTH = 0, READ = 1;
+
+    private SimpleMeterRegistry registry;
+    private AdaptiveConcurrencyFilter filter;
+    private AdaptiveConcurrencyFilter.RouteLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        filter = filter(60_000);
+        limiter = filter.limiter("polls");
+    }
+
+    @Test
+    void queuedWaiter_getsTheReleasedPermit() {
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        RecordingSink sink = enqueue(READ);
+        assertThat(sink.result).isNull();
+        assertThat(limiter.queued.get()).isEqualTo(1);
+
+        limiter.releasePermit();
+        assertThat(sink.result).isTrue();
+        assertThat(limiter.inflight()).isEqualTo(1);
+        assertThat(limiter.queued.get()).isZero();
+        assertThat(registry.get("gateway.priority.queue.time").tag("class", "read").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueue_shedsTheNewestLowerClassWaiter_thenRefusesItsClass() {
+        limiter.tryAcquire();
+        RecordingSink read0 = enqueue(READ);
+        RecordingSink read1 = enqueue(READ);
+
+        RecordingSink auth0 = enqueue(AUTH);
+        assertThat(read1.result).isFalse();
+        assertThat(read0.result).isNull();
+
+        RecordingSink read2 = enqueue(READ);
+        assertThat(read2.result).isFalse();
+        assertThat(shed("read", "queue-full")).isEqualTo(2);
+        assertThat(limiter.queued.get()).isEqualTo(2);
+
+        // the displaced waiter's later cancel is a no-op, and auth goes first on release
+        read1.cancel();
+        limiter.releasePermit();
+        assertThat(auth0.result).isTrue();
+        assertThat(read0.result).isNull();
+        assertThat(limiter.inflight()).isEqualTo(1);
+    }
+
+    @Test
+    void timedOutWaiter_isShed_andNotAdmittedLater() {
+        filter = filter(20);
+        limiter = filter.limiter("polls");
+        limiter.tryAcquire();
+        RecordingSink sink = enqueue(READ);
+
+        await(() -> sink.result != null);
+        assertThat(sink.result).isFalse();
+        assertThat(shed("read", "timeout")).isEqualTo(1);
+        assertThat(limiter.queued.get()).isZero();
+
+        limiter.releasePermit();
+        assertThat(limiter.inflight()).isZero();
+    }
+
+    @Test
+    void cancelWhileWaiting_leavesTheQueue_andCancelsTheTimeout() throws InterruptedException {
+        filter = filter(20);
+        limiter = filter.limiter("polls");
+        limiter.tryAcquire();
+        RecordingSink sink = enqueue(READ);
+
+        sink.cancel();
+        assertThat(limiter.queued.get()).isZero();
+        limiter.releasePermit();
+        assertThat(limiter.inflight()).isZero();
+
+        Thread.sleep(100);
+        assertThat(sink.result).isNull();
+        assertThat(shed("read", "timeout")).isZero();
+    }
+
+    @Test
+    void cancelAfterAdmission_returnsThePermitOnce() {
+        limiter.tryAcquire();
+        RecordingSink sink = enqueue(READ);
+        limiter.releasePermit();
+        assertThat(sink.result).isTrue();
+        assertThat(limiter.inflight()).isEqualTo(1);
+
+        sink.cancel();
+        assertThat(limiter.inflight()).isZero();
+        sink.cancel();
+        assertThat(limiter.inflight()).isZero();
+    }
+
+    @Test
+    void cancelRacingAdmission_neitherAdmitsNorLeaksThePermit() throws InterruptedException {
+        limiter.tryAcquire();
+        AdaptiveConcurrencyFilter.Waiter waiter = new AdaptiveConcurrencyFilter.Waiter(READ, System.nanoTime());
+        RecordingSink sink = new RecordingSink();
+        limiter.enqueue(waiter, sink);
+
+        Thread canceller;
+        synchronized (limiter) {
+            // the cancel wins the state but is still waiting for the lock when the permit comes back
+            canceller = Thread.ofPlatform().start(sink::cancel);
+            await(() -> waiter.state.get() == AdaptiveConcurrencyFilter.Waiter.GONE);
+            limiter.releasePermit();
+        }
+        canceller.join(5_000);
+
+        assertThat(sink.result).isNull();
+        assertThat(limiter.inflight()).isZero();
+        assertThat(limiter.queued.get()).isZero();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void extraPermit_countsAgainstTheLimit_andItsReleaseAdmitsWaiters() {
+        Runnable release = filter.tryAcquireExtra("polls");
+        assertThat(release).isNotNull();
+        assertThat(filter.tryAcquireExtra("polls")).isNull();
+
+        RecordingSink sink = enqueue(AUTH);
+        release.run();
+        assertThat(sink.result).isTrue();
+        // never queues, and never jumps ahead of a waiter either
+        assertThat(filter.tryAcquireExtra("polls")).isNull();
+    }
+
+    @Test
+    void shedRequest_gets503WithRetryAfter_andCancelledUpstreamCallFreesItsPermit() {
+        filter = filter(20);
+        Disposable held = filter.filter(exchange(), e -> Mono.never()).subscribe();
+
+        MockServerWebExchange shed = exchange();
+        filter.filter(shed, e -> Mono.empty()).block(Duration.ofSeconds(5));
+        assertThat(shed.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        held.dispose();
+        assertThat(filter.limiter("polls").inflight()).isZero();
+    }
+
+    private AdaptiveConcurrencyFilter filter(long maxWaitMs) {
+        registry = new SimpleMeterRegistry();
+        var priorities = new PriorityProperties(
+                List.of(new PriorityClass("auth", 8), new PriorityClass("read", 2)), 2, maxWaitMs, "read");
+        return new AdaptiveConcurrencyFilter(registry, priorities, true, 1, 1, 1, 0.2, 1.5, 100, 600, 1);
+    }
+
+    private RecordingSink enqueue(int cls) {
+        RecordingSink sink = new RecordingSink();
+        limiter.enqueue(new AdaptiveConcurrencyFilter.Waiter(cls, System.nanoTime()), sink);
+        return sink;
+    }
+
+    private double shed(String cls, String reason) {
+        return registry.get("gateway.concurrency.shed").tags("class", cls, "reason", reason).counter().count();
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/polls"));
+        Route route = Route.async().id("polls").uri("http://poll-service").predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Keeps the first outcome and the cancel hook, like the {@code Mono.create} sink minus the subscriber. */
+    private static final class RecordingSink implements MonoSink<Boolean> {
+        volatile Boolean result;
+        volatile Disposable onCancel;
+
+        void cancel() {
+            if (onCancel != null) onCancel.dispose();
+        }
+
+        @Override
+        public void success() {
+            success(null);
+        }
+
+        @Override
+        public void success(Boolean value) {
+            if (result == null) result = value;
+        }
+
+        @Override
+        public void error(Throwable e) {
+            throw new AssertionError(e);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public Context currentContext() {
+            return Context.empty();
+        }
+
+        @Override
+        public MonoSink<Boolean> onRequest(LongConsumer consumer) {
+            return this;
+        }
+
+        @Override
+        public MonoSink<Boolean> onCancel(Disposable d) {
+            onCancel = d;
+            return this;
+        }
+
+        @Override
+        public MonoSink<Boolean> onDispose(Disposable d) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.microservices.apigateway.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smoothing 1 (the limit jumps straight to its target) and tolerance 1.5; samples are fed ten at a time,
+ * 10 ms apart, which closes exactly one 90 ms window.
+ */
+public class GradientLimitTests {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(90);
+    private static final int BUSY = 1_000;
+
+    private GradientLimit limit;
+    private long now;
+
+    @BeforeEach
+    void setup() {
+        limit = limit(20, 5, 500);
+    }
+
+    @Test
+    void steadyLatency_growsTheLimitBySqrt() {
+        window(10, BUSY);
+        assertThat(limit.limit()).isEqualTo(24);   // 20 + √20
+        window(10, BUSY);
+        assertThat(limit.limit()).isEqualTo(29);   // 24.47 + √24.47
+    }
+
+    @Test
+    void latencyAboveTolerance_shrinksTheLimit() {
+        for (int i = 0; i < 10; i++) window(10, BUSY);
+        int before = limit.limit();
+
+        window(14, BUSY);                           // within 1.5× the baseline: still grows
+        assertThat(limit.limit()).isGreaterThan(before);
+
+        before = limit.limit();
+        window(40, BUSY);
+        assertThat(limit.limit()).isLessThan(before);
+    }
+
+    @Test
+    void gradient_isClampedToHalving() {
+        for (int i = 0; i < 10; i++) window(10, BUSY);
+        int before = limit.limit();
+
+        // a 1000× slowdown would give a gradient of 0.0015; it is held at 0.5, so limit / 2 + √limit
+        window(10_000, BUSY);
+        assertThat(limit.limit()).isGreaterThan(before / 2).isLessThan(before);
+    }
+
+    @Test
+    void limit_staysBetweenMinAndMax() {
+        limit = limit(20, 15, 30);
+        for (int i = 0; i < 10; i++) window(10, BUSY);
+        assertThat(limit.limit()).isEqualTo(30);
+
+        for (int i = 0; i < 20; i++) window(10_000, BUSY);
+        assertThat(limit.limit()).isEqualTo(15);
+    }
+
+    @Test
+    void limit_doesNotGrowWhileLessThanHalfIsInUse() {
+        for (int i = 0; i < 5; i++) window(10, 9);
+        assertThat(limit.limit()).isEqualTo(20);
+
+        window(10, 10);
+        assertThat(limit.limit()).isEqualTo(24);
+    }
+
+    @Test
+    void window_needsBothTenSamplesAndItsDuration() {
+        // nine samples spread over a second
+        for (int i = 0; i < 9; i++) limit.onSample(ms(10), BUSY, now += TimeUnit.MILLISECONDS.toNanos(125));
+        assertThat(limit.limit()).isEqualTo(20);
+
+        // then twenty more within 40 ms
+        long start = now;
+        for (int i = 0; i < 20; i++) limit.onSample(ms(10), BUSY, now += TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(limit.limit()).isEqualTo(24);
+
+        // the window closed on the tenth sample; the next nineteen are not enough time
+        assertThat(now - start).isLessThan(WINDOW);
+        limit.onSample(ms(10), BUSY, now = start + 2 * WINDOW);
+        assertThat(limit.limit()).isEqualTo(29);
+    }
+
+    @Test
+    void pastSlowPeriod_doesNotMaskANewRise() {
+        for (int i = 0; i < 10; i++) window(100, BUSY);
+        for (int i = 0; i < 100; i++) window(10, BUSY);
+        assertThat(limit.limit()).isEqualTo(500);
+
+        // without pulling the baseline down after recovery, 40 ms would still look fast next to 100 ms
+        window(40, BUSY);
+        assertThat(limit.limit()).isLessThan(400);
+    }
+
+    @Test
+    void initialLimit_isClampedAndMinIsAtLeastOne() {
+        assertThat(limit(1_000, 5, 500).limit()).isEqualTo(500);
+        assertThat(limit(1, 5, 500).limit()).isEqualTo(5);
+        assertThat(limit(0, 0, 0).limit()).isEqualTo(1);
+    }
+
+    private static GradientLimit limit(int initial, int min, int max) {
+        return new GradientLimit(initial, min, max, 1.0, 1.5, WINDOW, 600);
+    }
+
+    private void window(long rttMs, int inflight) {
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(ms(rttMs), inflight, now);
+            now += WINDOW / 9;
+        }
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,100 @@
+package com.microservices.apigateway.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Classes auth:read:anon weighted 8:2:1; items are named after their class. */
+public class WeightedFairQueueTests {
+
+    private static final int AUTH = 0, READ = 1, ANON = 2;
+
+    private WeightedFairQueue<String> queue;
+
+    @BeforeEach
+    void setup() {
+        queue = new WeightedFairQueue<>(new int[]{8, 2, 1}, 100);
+    }
+
+    @Test
+    void weights_interleaveAdmissions_eightToTwo() {
+        for (int i = 0; i < 20; i++) {
+            queue.offer("auth" + i, AUTH);
+            queue.offer("read" + i, READ);
+        }
+
+        List<String> first = drain(10);
+        assertThat(first).filteredOn(s -> s.startsWith("auth")).hasSize(8);
+        assertThat(first).filteredOn(s -> s.startsWith("read")).containsExactly("read0", "read1");
+        // smooth: the two read admissions are spread out, not bunched at the end
+        assertThat(first.indexOf("read1") - first.indexOf("read0")).isEqualTo(5);
+    }
+
+    @Test
+    void idleClass_accumulatesNoCredit() {
+        for (int i = 0; i < 10; i++) queue.offer("auth" + i, AUTH);
+        drain(5);
+
+        queue.offer("read0", READ);
+        // read was idle for five admissions; it gets its normal share, not a burst to catch up
+        assertThat(drain(3)).containsExactly("auth5", "auth6", "read0");
+    }
+
+    @Test
+    void fullQueue_displacesTheNewestWaiterOfTheLowestClass() {
+        queue = new WeightedFairQueue<>(new int[]{8, 2, 1}, 3);
+        assertThat(queue.offer("auth0", AUTH)).isNull();
+        assertThat(queue.offer("anon0", ANON)).isNull();
+        assertThat(queue.offer("anon1", ANON)).isNull();
+
+        assertThat(queue.offer("read0", READ)).isEqualTo("anon1");
+        assertThat(queue.offer("read1", READ)).isEqualTo("anon0");
+        // no lower class left: auth displaces the newest read
+        assertThat(queue.offer("auth1", AUTH)).isEqualTo("read1");
+
+        assertThat(drain(3)).containsExactlyInAnyOrder("auth0", "auth1", "read0");
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void fullQueue_refusesArrivalsOfTheLowestWaitingClassOrBelow() {
+        queue = new WeightedFairQueue<>(new int[]{8, 2, 1}, 2);
+        queue.offer("read0", READ);
+        queue.offer("read1", READ);
+
+        assertThat(queue.offer("read2", READ)).isEqualTo("read2");
+        assertThat(queue.offer("anon0", ANON)).isEqualTo("anon0");
+        assertThat(drain(2)).containsExactly("read0", "read1");
+    }
+
+    @Test
+    void remove_takesOnlyThatItem_andFreesItsSlot() {
+        queue = new WeightedFairQueue<>(new int[]{8, 2, 1}, 2);
+        queue.offer("read0", READ);
+        queue.offer("read1", READ);
+
+        assertThat(queue.remove("read0", AUTH)).isFalse();
+        assertThat(queue.remove("read0", READ)).isTrue();
+        assertThat(queue.remove("read0", READ)).isFalse();
+        assertThat(queue.offer("anon0", ANON)).isNull();
+
+        assertThat(drain(2)).containsExactly("read1", "anon0");
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    void eachClass_isFifo() {
+        for (int i = 0; i < 5; i++) queue.offer("anon" + i, ANON);
+        assertThat(drain(5)).containsExactly("anon0", "anon1", "anon2", "anon3", "anon4");
+    }
+
+    private List<String> drain(int n) {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < n; i++) items.add(queue.poll());
+        return items;
+    }
+}
@@ -0,0 +1,117 @@
+package com.microservices.apigateway.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** The rules mirror gateway-security-rules.yml; each policy is told apart by its rate-limit class. */
+public class RouteSecurityMatcherTests {
+
+    private RouteSecurityMatcher matcher;
+
+    @BeforeEach
+    void setup() {
+        matcher = new RouteSecurityMatcher(new SecurityRulesProperties(List.of(
+                rule("/auth/sign-in", AuthRequirement.OPTIONAL, "auth", "POST"),
+                rule("/actuator/**", AuthRequirement.OPTIONAL, "none"),
+                rule("/api/polls/export", AuthRequirement.OPTIONAL, "export", "GET"),
+                rule("/api/polls/*/votes/export", AuthRequirement.REQUIRED, "export", "GET"),
+                rule("/api/polls/*/votes", AuthRequirement.REQUIRED, "write", "POST"),
+                rule("/api/polls/**", AuthRequirement.OPTIONAL, "public-read", "GET", "HEAD"),
+                rule("/api/polls/**", AuthRequirement.REQUIRED, "polls-any"),
+                rule("/api/users/{id}", AuthRequirement.REQUIRED, "user"))));
+    }
+
+    @Test
+    void literalSegmentBeatsWildcard_andWildcardBeatsTrailingDoubleStar() {
+        assertThat(limitClass(HttpMethod.GET, "/api/polls/export")).isEqualTo("export");
+        // "export" is a poll id here: the literal branch has nothing for ".../votes", so the walk backtracks
+        assertThat(limitClass(HttpMethod.POST, "/api/polls/export/votes")).isEqualTo("write");
+        assertThat(limitClass(HttpMethod.POST, "/api/polls/42/votes")).isEqualTo("write");
+        assertThat(limitClass(HttpMethod.POST, "/api/polls/42/options")).isEqualTo("polls-any");
+        assertThat(matcher.match(HttpMethod.GET, "/api/polls/export").pattern()).isEqualTo("/api/polls/export");
+    }
+
+    @Test
+    void votesAndVotesExport_resolveToSeparatePolicies() {
+        RoutePolicy vote = matcher.match(HttpMethod.POST, "/api/polls/7/votes");
+        RoutePolicy export = matcher.match(HttpMethod.GET, "/api/polls/7/votes/export");
+        assertThat(vote.pattern()).isEqualTo("/api/polls/*/votes");
+        assertThat(export.pattern()).isEqualTo("/api/polls/*/votes/export");
+        assertThat(export.authRequired()).isTrue();
+
+        // each rule only claims its own method; the rest falls through to /api/polls/**
+        assertThat(matcher.match(HttpMethod.GET, "/api/polls/7/votes").pattern()).isEqualTo("/api/polls/**");
+        assertThat(matcher.match(HttpMethod.GET, "/api/polls/7/votes").authRequired()).isFalse();
+        assertThat(limitClass(HttpMethod.POST, "/api/polls/7/votes/export")).isEqualTo("polls-any");
+        assertThat(limitClass(HttpMethod.GET, "/api/polls/7/votes/export/csv")).isEqualTo("public-read");
+    }
+
+    @Test
+    void methodSlots_namedMethodsWin_andOtherMethodsTakeTheAnyMethodRule() {
+        assertThat(limitClass(HttpMethod.GET, "/api/polls/1")).isEqualTo("public-read");
+        assertThat(limitClass(HttpMethod.HEAD, "/api/polls/1")).isEqualTo("public-read");
+        assertThat(limitClass(HttpMethod.DELETE, "/api/polls/1")).isEqualTo("polls-any");
+        assertThat(limitClass(HttpMethod.OPTIONS, "/api/polls/1")).isEqualTo("polls-any");
+        assertThat(limitClass(HttpMethod.valueOf("PURGE"), "/api/polls/1")).isEqualTo("polls-any");
+        assertThat(limitClass(null, "/api/polls/1")).isEqualTo("polls-any");
+
+        // method-specific rule on a method it does not name: no match at all, so the default policy
+        assertThat(matcher.match(HttpMethod.GET, "/auth/sign-in")).isSameAs(RoutePolicy.DEFAULT);
+
+        // declaration order does not matter: a rule naming the method still takes its slot
+        RouteSecurityMatcher reversed = new RouteSecurityMatcher(new SecurityRulesProperties(List.of(
+                rule("/api/polls/**", AuthRequirement.REQUIRED, "polls-any"),
+                rule("/api/polls/**", AuthRequirement.OPTIONAL, "public-read", "GET"))));
+        assertThat(reversed.match(HttpMethod.GET, "/api/polls").limitClass()).isEqualTo("public-read");
+        assertThat(reversed.match(HttpMethod.PUT, "/api/polls").limitClass()).isEqualTo("polls-any");
+    }
+
+    @Test
+    void trailingAndRepeatedSlashes_matchTheSameRule() {
+        assertThat(limitClass(HttpMethod.POST, "/auth/sign-in/")).isEqualTo("auth");
+        assertThat(limitClass(HttpMethod.POST, "//auth//sign-in")).isEqualTo("auth");
+        assertThat(limitClass(HttpMethod.POST, "/api/polls/7/votes/")).isEqualTo("write");
+        assertThat(limitClass(HttpMethod.GET, "/api/polls/export/")).isEqualTo("export");
+        // ** also matches zero segments
+        assertThat(limitClass(HttpMethod.GET, "/api/polls/")).isEqualTo("public-read");
+        assertThat(limitClass(HttpMethod.GET, "/actuator")).isEqualTo("none");
+    }
+
+    @Test
+    void partialSegmentsAndUnknownPaths_getTheDefaultPolicy() {
+        assertThat(matcher.match(HttpMethod.GET, "/api/poll")).isSameAs(RoutePolicy.DEFAULT);
+        assertThat(matcher.match(HttpMethod.GET, "/api/pollsx/1")).isSameAs(RoutePolicy.DEFAULT);
+        assertThat(matcher.match(HttpMethod.GET, "/api/users/1/roles")).isSameAs(RoutePolicy.DEFAULT);
+        assertThat(matcher.match(HttpMethod.GET, "/")).isSameAs(RoutePolicy.DEFAULT);
+        assertThat(RoutePolicy.DEFAULT.authRequired()).isTrue();
+        assertThat(RoutePolicy.DEFAULT.rateLimited()).isTrue();
+    }
+
+    @Test
+    void invalidRules_failAtStartup() {
+        assertThatThrownBy(() -> compile(rule("/api/**/votes", AuthRequirement.REQUIRED, "write")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> compile(rule("api/polls", AuthRequirement.REQUIRED, "write")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> compile(rule("/api/polls", AuthRequirement.REQUIRED, "write", "PURGE")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private String limitClass(HttpMethod method, String path) {
+        return matcher.match(method, path).limitClass();
+    }
+
+    private static RouteSecurityMatcher compile(SecurityRulesProperties.Rule rule) {
+        return new RouteSecurityMatcher(new SecurityRulesProperties(List.of(rule)));
+    }
+
+    private static SecurityRulesProperties.Rule rule(String path, AuthRequirement auth, String rateLimit, String... methods) {
+        return new SecurityRulesProperties.Rule(path, List.of(methods), auth, rateLimit, null);
+    }
+}
@@ -0,0 +1,177 @@
+package com.microservices.apigateway.filter;
+
+import com.microservices.apigateway.concurrency.AdaptiveConcurrencyFilter;
+import com.microservices.apigateway.config.PriorityProperties;
+import com.microservices.apigateway.loadbalancer.OutlierDetector;
+import com.microservices.apigateway.loadbalancer.UpstreamStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two real upstreams: {@code a} is the load balancer's pick, {@code b} the only candidate for a hedge.
+ * The buffering cap is 4 KiB; {@code /api/polls/{size}} answers with that many bytes after the upstream's
+ * configured delay.
+ */
+public class HedgingFilterTests {
+
+    private static final int CAP = 4096;
+
+    private DisposableServer a;
+    private DisposableServer b;
+    private volatile Duration aDelay = Duration.ZERO;
+    private ServiceInstance instanceA;
+    private SimpleMeterRegistry registry;
+    private HedgingFilter filter;
+
+    @BeforeEach
+    void setup() {
+        a = upstream(() -> aDelay);
+        b = upstream(() -> Duration.ZERO);
+        instanceA = new DefaultServiceInstance("a", "poll-service", "localhost", a.port(), false);
+        ServiceInstance instanceB = new DefaultServiceInstance("b", "poll-service", "localhost", b.port(), false);
+
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        when(supplier.get()).thenReturn(Flux.just(List.of(instanceA, instanceB)));
+        LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance("poll-service", ServiceInstanceListSupplier.class)).thenReturn(supplier);
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("clientFactory", clientFactory);
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters =
+                beans.getBeanProvider(ResolvableType.forClassWithGenerics(List.class, HttpHeadersFilter.class));
+
+        registry = new SimpleMeterRegistry();
+        var concurrency = new AdaptiveConcurrencyFilter(registry, new PriorityProperties(null, 0, 0, null),
+                true, 100, 5, 500, 0.2, 1.5, 100, 600, 1);
+        filter = new HedgingFilter(beans.getBeanProvider(LoadBalancerClientFactory.class),
+                new UpstreamStats(registry, 10), new OutlierDetector(registry, 5, 20, 50, 10, 300, 50),
+                concurrency, headersFilters, registry,
+                true, "polls", "/api/polls/{id:\\d+}", 0.95, 5, 100, 5000, CAP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.destroy();
+        a.disposeNow();
+        b.disposeNow();
+    }
+
+    @Test
+    void unhedgedResponse_isStreamedWhateverItsSize() {
+        MockServerWebExchange exchange = send("GET", "/api/polls/100000");
+
+        assertThat(exchange.getResponse().getStatusCode().value()).isEqualTo(200);
+        assertThat(exchange.getResponse().getBodyAsString().block()).hasSize(100_000);
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(100_000);
+    }
+
+    @Test
+    void head_keepsTheUpstreamContentLength() {
+        MockServerWebExchange exchange = send("HEAD", "/api/polls/5000");
+
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(5000);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void literalSiblingsOfTheIdPath_areNotHedged() {
+        MockServerWebExchange exchange = exchange("GET", "/api/polls/export");
+        filter.filter(exchange, e -> Mono.empty()).block(Duration.ofSeconds(10));
+
+        // handed to the routing filter untouched
+        assertThat(ServerWebExchangeUtils.isAlreadyRouted(exchange)).isFalse();
+        assertThat(registry.find("gateway.hedging.requests").counter()).isNull();
+    }
+
+    @Test
+    void hedgeThatOutgrowsTheCap_winsAndIsStreamedWhole() {
+        warmUp();
+        aDelay = Duration.ofSeconds(2);
+
+        MockServerWebExchange exchange = send("GET", "/api/polls/100000");
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).hasSize(100_000);
+        assertThat(registry.get("gateway.hedging.sent").counter().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.hedging.wins").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hedgeWithinTheCap_winsWithItsBufferedBody() {
+        warmUp();
+        aDelay = Duration.ofSeconds(2);
+
+        MockServerWebExchange exchange = send("GET", "/api/polls/1000");
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).hasSize(1000);
+        assertThat(registry.get("gateway.hedging.wins").counter().count()).isEqualTo(1);
+    }
+
+    /** Enough fast requests for a hedge delay (the route's p95) and a budget of five hedges. */
+    private void warmUp() {
+        for (int i = 0; i < 100; i++) send("GET", "/api/polls/10");
+        assertThat(registry.get("gateway.hedging.sent").counter().count()).isZero();
+    }
+
+    private MockServerWebExchange send(String method, String path) {
+        MockServerWebExchange exchange = exchange(method, path);
+        filter.filter(exchange, e -> Mono.error(new AssertionError("not proxied by the hedging filter")))
+                .block(Duration.ofSeconds(10));
+        return exchange;
+    }
+
+    private MockServerWebExchange exchange(String method, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.method(HttpMethod.valueOf(method), path));
+        Route route = Route.async().id("polls").uri("lb://poll-service").predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://localhost:" + a.port() + path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                new DefaultResponse(instanceA));
+        return exchange;
+    }
+
+    private static DisposableServer upstream(Supplier<Duration> delay) {
+        return HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/polls/{size}", (request, response) -> {
+                            int size = Integer.parseInt(request.param("size"));
+                            return response.header(HttpHeaders.CONTENT_LENGTH, String.valueOf(size))
+                                    .sendByteArray(Mono.delay(delay.get()).map(t -> "x".repeat(size).getBytes()));
+                        })
+                        .head("/api/polls/{size}", (request, response) -> response
+                                .header(HttpHeaders.CONTENT_LENGTH, request.param("size"))
+                                .send()))
+                .bindNow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.microservices.apigateway.filter;
+
+import com.microservices.apigateway.config.AuthRequirement;
+import com.microservices.apigateway.config.RoutePolicy;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** limits-service is a stubbed exchange function; fail-open, with the local fallback limiter enabled. */
+public class RateLimitFilterTests {
+
+    private final AtomicInteger limitsCalls = new AtomicInteger();
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private volatile boolean limitsAllow = true;
+
+    private SimpleMeterRegistry registry;
+    private RateLimitFilter rateLimit;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        WebClient limits = WebClient.builder()
+                .exchangeFunction(request -> {
+                    limitsCalls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"allowed\":" + limitsAllow + ",\"remaining\":3,\"limit\":10,\"resetSeconds\":1}")
+                            .build());
+                })
+                .build();
+        rateLimit = new RateLimitFilter(limits, true, 500, registry,
+                new RequestContextFilter(null, null, null), new LocalRateLimiter(true, 0.25, 20, 1000, registry));
+        filter = rateLimit.apply(new RateLimitFilter.Config());
+    }
+
+    @Test
+    void allowed_forwardsOnce_withTheRateHeaders() {
+        MockServerWebExchange exchange = exchange("alice");
+        filter.filter(exchange, chain(Mono.empty())).block(Duration.ofSeconds(5));
+
+        assertThat(forwarded).hasValue(1);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Rate-Remaining")).isEqualTo("3");
+        assertThat(exchange.<RateLimitOutcome>getAttribute(RateLimitOutcome.ATTR)).isEqualTo(RateLimitOutcome.ALLOWED);
+    }
+
+    @Test
+    void denied_answers429_withoutForwarding_andIsCached() {
+        limitsAllow = false;
+        MockServerWebExchange first = exchange("alice");
+        filter.filter(first, chain(Mono.empty())).block(Duration.ofSeconds(5));
+        MockServerWebExchange second = exchange("alice");
+        filter.filter(second, chain(Mono.empty())).block(Duration.ofSeconds(5));
+
+        assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(limitsCalls).hasValue(1);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    @Test
+    void downstreamError_isNeitherRetriedNorCountedAsALimitsFailure() {
+        MockServerWebExchange exchange = exchange("alice");
+        var failing = chain(Mono.error(new IllegalStateException("upstream failed")));
+
+        assertThatThrownBy(() -> filter.filter(exchange, failing).block(Duration.ofSeconds(5)))
+                .hasMessageContaining("upstream failed");
+        assertThat(forwarded).hasValue(1);
+        assertThat(registry.get("limits.requests.error").counter().count()).isZero();
+        assertThat(exchange.<RateLimitOutcome>getAttribute(RateLimitOutcome.ATTR)).isEqualTo(RateLimitOutcome.ALLOWED);
+    }
+
+    @Test
+    void downstreamError_whileTheBreakerIsHalfOpen_isNotSentThroughTheLocalLimiter() {
+        CircuitBreaker breaker = (CircuitBreaker) ReflectionTestUtils.getField(rateLimit, "circuitBreaker");
+        breaker.transitionToOpenState();
+        breaker.transitionToHalfOpenState();
+        var failing = chain(Mono.error(new IllegalStateException("upstream failed")));
+
+        assertThatThrownBy(() -> filter.filter(exchange("alice"), failing).block(Duration.ofSeconds(5)))
+                .hasMessageContaining("upstream failed");
+        assertThat(limitsCalls).hasValue(1);
+        assertThat(forwarded).hasValue(1);
+        assertThat(registry.get("limits.degraded.requests").tag("allowed", "true").counter().count()).isZero();
+    }
+
+    @Test
+    void openBreaker_limitsLocally_andForwardsOnce() {
+        CircuitBreaker breaker = (CircuitBreaker) ReflectionTestUtils.getField(rateLimit, "circuitBreaker");
+        breaker.transitionToOpenState();
+
+        MockServerWebExchange exchange = exchange("alice");
+        filter.filter(exchange, chain(Mono.empty())).block(Duration.ofSeconds(5));
+
+        assertThat(limitsCalls).hasValue(0);
+        assertThat(forwarded).hasValue(1);
+        assertThat(exchange.<RateLimitOutcome>getAttribute(RateLimitOutcome.ATTR)).isEqualTo(RateLimitOutcome.LOCAL_ALLOWED);
+    }
+
+    private GatewayFilterChain chain(Mono<Void> result) {
+        return exchange -> {
+            forwarded.incrementAndGet();
+            return result;
+        };
+    }
+
+    private static MockServerWebExchange exchange(String user) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/polls/1"));
+        RoutePolicy policy = new RoutePolicy("/api/polls/**", AuthRequirement.OPTIONAL, "public-read", null);
+        exchange.getAttributes().put(GatewayRequestContext.ATTR,
+                new GatewayRequestContext(policy, null, null, "user:" + user));
+        return exchange;
+    }
+}
@@ -0,0 +1,160 @@
+package com.microservices.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Ejects after 3 errors in a row or 5 errors in a window of 10, for 60 s; at most half of the 4 instances. */
+public class OutlierDetectorTests {
+
+    private final ServiceInstance a = instance("a");
+    private final ServiceInstance b = instance("b");
+    private final ServiceInstance c = instance("c");
+    private final ServiceInstance d = instance("d");
+    private final List<ServiceInstance> all = List.of(a, b, c, d);
+
+    private SimpleMeterRegistry registry;
+    private OutlierDetector detector;
+
+    @BeforeEach
+    void setup() {
+        detector(60, 50);
+    }
+
+    @Test
+    void consecutiveErrors_ejectTheInstance() {
+        record(a, true, true);
+        assertThat(detector.available("poll-service", all)).containsExactly(a, b, c, d);
+
+        record(a, true);
+        assertThat(detector.available("poll-service", all)).containsExactly(b, c, d);
+        assertThat(ejections("consecutive-errors")).isEqualTo(1);
+        assertThat(registry.get("gateway.outlier.ejected").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void aSuccess_resetsTheConsecutiveCount() {
+        record(a, true, true, false, true, true);
+        assertThat(detector.available("poll-service", all)).contains(a);
+    }
+
+    @Test
+    void errorRate_isJudgedOnlyOnAFullWindow() {
+        // alternating: never three in a row, five errors once ten outcomes are in
+        for (int i = 0; i < 9; i++) record(a, i % 2 == 0);
+        assertThat(detector.available("poll-service", all)).contains(a);
+
+        record(a, false);
+        assertThat(detector.available("poll-service", all)).doesNotContain(a);
+        assertThat(ejections("error-rate")).isEqualTo(1);
+    }
+
+    @Test
+    void errorRate_slidesOverTheLastWindow() {
+        record(a, true, true, false, false, false, false, false, false, true, true);   // 4 of 10
+        record(a, false, true, true, false);   // two errors in, the two oldest slid out
+        assertThat(detector.available("poll-service", all)).contains(a);
+
+        record(a, true);                       // pushes out a success: 5 of 10
+        assertThat(detector.available("poll-service", all)).doesNotContain(a);
+        assertThat(ejections("error-rate")).isEqualTo(1);
+    }
+
+    @Test
+    void ejections_areCappedAtMaxEjectionPercent() {
+        record(a, true, true, true);
+        record(b, true, true, true);
+        record(c, true, true, true);
+
+        assertThat(detector.available("poll-service", all)).containsExactly(c, d);
+        assertThat(registry.get("gateway.outlier.ejections.skipped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownPoolSize_ejectsNothing() {
+        // nothing has asked for the service's instances yet, so half of them is zero
+        record(instance("user-service", "a"), true, true, true);
+        assertThat(registry.get("gateway.outlier.ejections.skipped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void poolThatWouldBeEmpty_isReturnedWhole() {
+        detector(60, 100);
+        detector.available("poll-service", List.of(a, b));
+        record(a, true, true, true);
+        record(b, true, true, true);
+
+        assertThat(detector.available("poll-service", List.of(a, b))).containsExactly(a, b);
+    }
+
+    @Test
+    void ejectedInstance_ignoresLateOutcomes_andReturnsWithACleanWindow() throws InterruptedException {
+        detector(1, 50);
+        record(a, true, true, true);
+        record(a, true, true, true);   // responses to requests sent before the ejection
+        assertThat(ejections("consecutive-errors")).isEqualTo(1);
+
+        Thread.sleep(1_100);
+        assertThat(detector.available("poll-service", all)).contains(a);
+        record(a, true, true);
+        assertThat(detector.available("poll-service", all)).contains(a);
+        record(a, true);
+        assertThat(detector.available("poll-service", all)).doesNotContain(a);
+        assertThat(ejections("consecutive-errors")).isEqualTo(2);
+    }
+
+    @Test
+    void lifecycle_countsFailuresAnd5xx_not4xxOrDiscards() {
+        complete(CompletionContext.Status.SUCCESS, a, HttpStatus.BAD_GATEWAY);
+        complete(CompletionContext.Status.FAILED, a, null);
+        complete(CompletionContext.Status.SUCCESS, a, HttpStatus.NOT_FOUND);
+        complete(CompletionContext.Status.SUCCESS, b, HttpStatus.SERVICE_UNAVAILABLE);
+        complete(CompletionContext.Status.DISCARD, b, null);
+        complete(CompletionContext.Status.SUCCESS, b, HttpStatus.INTERNAL_SERVER_ERROR);
+        complete(CompletionContext.Status.FAILED, b, null);
+        detector.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, null, new EmptyResponse(), null));
+
+        assertThat(detector.available("poll-service", all)).containsExactly(a, c, d);
+    }
+
+    private void detector(long baseEjectionSeconds, double maxEjectionPercent) {
+        registry = new SimpleMeterRegistry();
+        detector = new OutlierDetector(registry, 3, 10, 50, baseEjectionSeconds, 300, maxEjectionPercent);
+        detector.available("poll-service", all);
+    }
+
+    private void record(ServiceInstance instance, boolean... outcomes) {
+        for (boolean error : outcomes) detector.record(instance, error);
+    }
+
+    private void complete(CompletionContext.Status status, ServiceInstance instance, HttpStatus httpStatus) {
+        ResponseData response = httpStatus == null ? null : new ResponseData(httpStatus, new HttpHeaders(), null, null);
+        detector.onComplete(new CompletionContext<ResponseData, ServiceInstance, RequestDataContext>(
+                status, null, new DefaultResponse(instance), response));
+    }
+
+    private double ejections(String reason) {
+        return registry.get("gateway.outlier.ejections").tag("reason", reason).counter().count();
+    }
+
+    private static ServiceInstance instance(String host) {
+        return instance("poll-service", host);
+    }
+
+    private static ServiceInstance instance(String serviceId, String host) {
+        return new DefaultServiceInstance(serviceId + "-" + host, serviceId, host, 8080, false);
+    }
+}
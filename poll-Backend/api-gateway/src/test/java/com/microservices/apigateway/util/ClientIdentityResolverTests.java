@@ -0,0 +1,122 @@
+package com.microservices.apigateway.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Trusted proxies are 10.0.0.0/8 and ::1; addresses are literals, so nothing here touches DNS. */
+public class ClientIdentityResolverTests {
+
+    private ClientIdentityResolver resolver;
+
+    @BeforeEach
+    void setup() {
+        resolver = new ClientIdentityResolver("10.0.0.0/8, ::1/128", 64, 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void forwardedFor_fromUntrustedPeer_isIgnored() {
+        assertThat(resolve("203.0.113.9", "1.2.3.4")).isEqualTo("ip:203.0.113.9");
+        assertThat(resolve("203.0.113.9", "10.0.0.7")).isEqualTo("ip:203.0.113.9");
+        assertThat(resolve("203.0.113.9")).isEqualTo("ip:203.0.113.9");
+    }
+
+    @Test
+    void trustedChain_isWalkedRightToLeft_toTheFirstUntrustedHop() {
+        assertThat(resolve("10.0.0.1", "198.51.100.7, 10.0.0.2, 10.0.0.3")).isEqualTo("ip:198.51.100.7");
+        // entries left of the real client are whatever the client sent
+        assertThat(resolve("10.0.0.1", "6.6.6.6, 198.51.100.7, 10.0.0.2")).isEqualTo("ip:198.51.100.7");
+        // repeated header lines form one chain, last line nearest to us
+        assertThat(resolve("10.0.0.1", "6.6.6.6", "198.51.100.7, 10.0.0.2")).isEqualTo("ip:198.51.100.7");
+        // every hop trusted: the left-most one is the best we know
+        assertThat(resolve("::1", "10.0.0.5, 10.0.0.6")).isEqualTo("ip:10.0.0.5");
+    }
+
+    @Test
+    void unparsableEntry_stopsTheWalk_atTheLastGoodHop() {
+        assertThat(resolve("10.0.0.1", "198.51.100.7, unknown, 10.0.0.2")).isEqualTo("ip:10.0.0.2");
+        assertThat(resolve("10.0.0.1", "198.51.100.7, client.example.com")).isEqualTo("ip:10.0.0.1");
+        assertThat(resolve("10.0.0.1", "[2001:db8::1")).isEqualTo("ip:10.0.0.1");
+        assertThat(resolve("10.0.0.1", "198.51.100.7,,10.0.0.2")).isEqualTo("ip:10.0.0.2");
+    }
+
+    @Test
+    void ipv4MappedIpv6_countsAsIpv4_forKeysAndTrust() {
+        assertThat(resolve("10.0.0.1", "::ffff:198.51.100.7")).isEqualTo("ip:198.51.100.7");
+        assertThat(resolve("10.0.0.1", "198.51.100.7, ::ffff:10.0.0.2")).isEqualTo("ip:198.51.100.7");
+        assertThat(resolve("::ffff:203.0.113.9")).isEqualTo("ip:203.0.113.9");
+    }
+
+    @Test
+    void hostPortForms_dropThePort() {
+        assertThat(resolve("10.0.0.1", "198.51.100.7:51234")).isEqualTo("ip:198.51.100.7");
+        String v6 = resolve("10.0.0.1", "2001:db8::1");
+        assertThat(resolve("10.0.0.1", "[2001:db8::1]:443")).isEqualTo(v6);
+        assertThat(resolve("10.0.0.1", "[2001:db8::1]")).isEqualTo(v6);
+        // the peer's own source port never reaches the key
+        assertThat(resolve(new InetSocketAddress(address("203.0.113.9"), 40000)))
+                .isEqualTo(resolve(new InetSocketAddress(address("203.0.113.9"), 40001)));
+    }
+
+    @Test
+    void ipv6Clients_areAggregatedToTheirPrefix() {
+        String a = resolve("2001:db8:1:2::1");
+        assertThat(a).isEqualTo("ip6:20010db800010002/64");
+        assertThat(resolve("2001:db8:1:2:ffff:ffff:ffff:9")).isEqualTo(a);
+        assertThat(resolve("2001:db8:1:3::1")).isNotEqualTo(a);
+
+        var wide = new ClientIdentityResolver("", 48, 1000, new SimpleMeterRegistry());
+        assertThat(wide.resolve(request("2001:db8:1:3::1"))).isEqualTo("ip6:20010db80001/48")
+                .isEqualTo(wide.resolve(request("2001:db8:1:ffff::1")));
+    }
+
+    @Test
+    void missingPeer_isUnknown_andKeysAreInterned() {
+        assertThat(resolver.resolve(MockServerHttpRequest.get("/").build())).isEqualTo(ClientIdentityResolver.UNKNOWN);
+        assertThat(resolve("198.51.100.7")).isSameAs(resolve("10.0.0.1", "198.51.100.7"));
+    }
+
+    @Test
+    void forwardedChain_isExaminedForAtMost16Hops() {
+        String chain = "198.51.100.7" + ", 10.0.0.9".repeat(20);
+        assertThat(resolve("10.0.0.1", chain)).isEqualTo("ip:10.0.0.9");
+    }
+
+    @Test
+    void invalidTrustedProxy_failsAtStartup() {
+        assertThatThrownBy(() -> new ClientIdentityResolver("10.0.0.0/33", 64, 10, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new ClientIdentityResolver("proxy.internal", 64, 10, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private String resolve(String peer, String... forwardedFor) {
+        var builder = MockServerHttpRequest.get("/api/polls").remoteAddress(new InetSocketAddress(address(peer), 443));
+        for (String value : forwardedFor) builder.header("X-Forwarded-For", value);
+        return resolver.resolve(builder.build());
+    }
+
+    private String resolve(InetSocketAddress peer) {
+        return resolver.resolve(MockServerHttpRequest.get("/").remoteAddress(peer).build());
+    }
+
+    private static MockServerHttpRequest request(String peer) {
+        return MockServerHttpRequest.get("/").remoteAddress(new InetSocketAddress(address(peer), 443)).build();
+    }
+
+    private static InetAddress address(String literal) {
+        try {
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(literal, e);
+        }
+    }
+}
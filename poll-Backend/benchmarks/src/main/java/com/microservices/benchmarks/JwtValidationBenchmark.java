@@ -0,0 +1,51 @@
+package com.microservices.benchmarks;
+
+import com.microservices.apigateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway-side {@link JwtUtil#validateAndGetClaims} for an HS512 token as minted by user-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    static final String SECRET = "L+tc2CP2cSx2R6y4D1S0rME2SLYeiq2NwqxYnhtGe0LSHNaxt4beEmQixlpQ7GoPz6+zYd2alMISFnP2ecNJSQ==";
+    static final String ISSUER = "polling-app-auth";
+
+    JwtUtil jwtUtil;
+    String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil(SECRET, ISSUER, false);
+        var now = Instant.now();
+        token = Jwts.builder()
+                .setSubject("42")
+                .setIssuer(ISSUER)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusSeconds(3600)))
+                .addClaims(Map.of("email", "bench@example.com", "roles", "USER"))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims validate() {
+        return jwtUtil.validateAndGetClaims(token);
+    }
+}
@@ -0,0 +1,58 @@
+package com.microservices.benchmarks;
+
+import com.example.pollservice.api.dto.PollResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link PollResponse} lists as returned by {@code GET /api/polls},
+ * configured like poll-service (JavaTimeModule, ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PollResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    ObjectWriter writer;
+    List<PollResponse> polls;
+
+    @Setup
+    public void setup() {
+        writer = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writerFor(new TypeReference<List<PollResponse>>() { });
+        var expiresAt = Instant.parse("2030-01-01T00:00:00Z");
+        polls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long base = i * 4L;
+            polls.add(new PollResponse((long) i, "What should we benchmark next, option set " + i + "?", expiresAt,
+                    "ACTIVE", 1234,
+                    List.of(new PollResponse.OptionDto(base, "Rate limiter", 400),
+                            new PollResponse.OptionDto(base + 1, "JWT validation", 300),
+                            new PollResponse.OptionDto(base + 2, "DTO assembly", 300),
+                            new PollResponse.OptionDto(base + 3, "Serialization", 234)),
+                    i % 2 == 0, i % 2 == 0 ? base : null));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(polls);
+    }
+}
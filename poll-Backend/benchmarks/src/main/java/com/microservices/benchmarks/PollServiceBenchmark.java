@@ -0,0 +1,110 @@
+package com.microservices.benchmarks;
+
+import com.example.pollservice.api.dto.CreatePollRequest;
+import com.example.pollservice.api.dto.PollResponse;
+import com.example.pollservice.poll.Poll;
+import com.example.pollservice.poll.PollRepository;
+import com.example.pollservice.poll.PollService;
+import com.example.pollservice.poll.VoteTally;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PollService} DTO assembly (per-option counts, hasVoted lookup) against an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PollServiceBenchmark {
+
+    static final int POLLS = 50;
+    static final int VOTERS = 20;
+
+    @Configuration
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = Poll.class)
+    @EnableJpaRepositories(basePackageClasses = PollRepository.class)
+    @Import({PollService.class, VoteTally.class})
+    static class PollBenchmarkConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    ConfigurableApplicationContext context;
+    PollService service;
+    Long pollId;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(PollBenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        // keep the poll-service application.yml (MariaDB, config server) out of the way
+                        "spring.config.location=optional:classpath:/benchmarks/",
+                        "spring.cloud.config.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:polls-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false")
+                .run();
+        service = context.getBean(PollService.class);
+
+        var expiresAt = Instant.now().plusSeconds(86_400);
+        for (int p = 0; p < POLLS; p++) {
+            var created = service.create(new CreatePollRequest("Benchmark question " + p,
+                    List.of("Option A", "Option B", "Option C", "Option D"), expiresAt), "creator@example.com");
+            if (pollId == null) pollId = created.id();
+            for (int v = 0; v < VOTERS; v++) {
+                var option = created.options().get(v % created.options().size());
+                service.vote(created.id(), option.id(), "voter" + v + "@example.com");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PollResponse getOneAnonymous() {
+        return service.getOneForUser(pollId, null);
+    }
+
+    @Benchmark
+    public PollResponse getOneForVoter() {
+        return service.getOneForUser(pollId, "voter3@example.com");
+    }
+
+    @Benchmark
+    public List<PollResponse> listAllForVoter() {
+        return service.listAllForUser("voter3@example.com");
+    }
+}
@@ -0,0 +1,54 @@
+package com.microservices.benchmarks;
+
+import com.microservices.limitsservice.service.RateLimiterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RateLimiterService#tryConsume} with one bucket per thread (uncontended)
+ * and with every thread hammering the same bucket (contended).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+        RateLimiterService service;
+        final AtomicInteger threadIds = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            service = new RateLimiterService(new SimpleMeterRegistry());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        String key;
+
+        @Setup
+        public void setup(Limiter limiter) {
+            key = "user:" + limiter.threadIds.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimiterService.ConsumeResult uncontended(Limiter limiter, ThreadKey threadKey) {
+        // huge refill so the bucket never runs dry and the allowed path is measured
+        return limiter.service.tryConsume(threadKey.key, "/api/polls", 1, 1_000_000_000, 1_000_000_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimiterService.ConsumeResult contended(Limiter limiter) {
+        return limiter.service.tryConsume("ip:203.0.113.7", "/api/polls", 1, 1_000_000_000, 1_000_000_000);
+    }
+}
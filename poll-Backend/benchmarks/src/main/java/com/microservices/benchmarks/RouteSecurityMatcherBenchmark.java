@@ -0,0 +1,69 @@
+package com.microservices.benchmarks;
+
+import com.microservices.apigateway.config.AuthRequirement;
+import com.microservices.apigateway.config.RoutePolicy;
+import com.microservices.apigateway.config.RouteSecurityMatcher;
+import com.microservices.apigateway.config.SecurityRulesProperties;
+import com.microservices.apigateway.config.SecurityRulesProperties.Rule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway {@link RouteSecurityMatcher#match} for an open read, an open auth endpoint, a secured write
+ * and an unmatched path (default policy). Rules mirror {@code gateway-security-rules.yml}.
+ * Run with {@code -prof gc} to confirm the lookup does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteSecurityMatcherBenchmark {
+
+    RouteSecurityMatcher matcher;
+    MockServerHttpRequest pollRead;
+    MockServerHttpRequest signIn;
+    MockServerHttpRequest vote;
+    MockServerHttpRequest unmatched;
+
+    @Setup
+    public void setup() {
+        matcher = new RouteSecurityMatcher(new SecurityRulesProperties(List.of(
+                new Rule("/auth/sign-in", List.of("POST"), AuthRequirement.OPTIONAL, "auth", "auth"),
+                new Rule("/auth/sign-up", List.of("POST"), AuthRequirement.OPTIONAL, "auth", "auth"),
+                new Rule("/actuator/**", List.of(), AuthRequirement.OPTIONAL, RoutePolicy.NO_LIMIT, null),
+                new Rule("/api/polls/*/votes", List.of("POST"), AuthRequirement.REQUIRED, "write", "vote"),
+                new Rule("/api/polls/**", List.of("GET", "HEAD"), AuthRequirement.OPTIONAL, "public-read", "read"),
+                new Rule("/api/polls/**", List.of(), AuthRequirement.REQUIRED, "write", null),
+                new Rule("/api/auth/me", List.of("GET"), AuthRequirement.REQUIRED, "user", null),
+                new Rule("/api/users/**", List.of(), AuthRequirement.REQUIRED, "user", null))));
+        pollRead = MockServerHttpRequest.get("/api/polls/17").build();
+        signIn = MockServerHttpRequest.post("/auth/sign-in").build();
+        vote = MockServerHttpRequest.post("/api/polls/17/votes").build();
+        unmatched = MockServerHttpRequest.get("/internal/debug/state").build();
+    }
+
+    @Benchmark
+    public RoutePolicy pollRead() {
+        return matcher.match(pollRead);
+    }
+
+    @Benchmark
+    public RoutePolicy signIn() {
+        return matcher.match(signIn);
+    }
+
+    @Benchmark
+    public RoutePolicy vote() {
+        return matcher.match(vote);
+    }
+
+    @Benchmark
+    public RoutePolicy unmatched() {
+        return matcher.match(unmatched);
+    }
+}
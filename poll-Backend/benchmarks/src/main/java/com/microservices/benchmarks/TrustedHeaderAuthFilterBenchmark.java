@@ -0,0 +1,60 @@
+package com.microservices.benchmarks;
+
+import com.example.pollservice.security.TrustedHeaderAuthFilter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * poll-service {@link TrustedHeaderAuthFilter}: parsing X-User-Email / X-User-Roles into an Authentication.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrustedHeaderAuthFilterBenchmark {
+
+    // OncePerRequestFilter marks the request; cleared after each call so the filter body runs every time
+    private static final String ALREADY_FILTERED = TrustedHeaderAuthFilter.class.getName() + ".FILTERED";
+
+    TrustedHeaderAuthFilter filter;
+    MockHttpServletRequest withRoles;
+    MockHttpServletRequest anonymous;
+    MockHttpServletResponse response;
+    FilterChain chain;
+
+    @Setup
+    public void setup() {
+        filter = new TrustedHeaderAuthFilter();
+        withRoles = new MockHttpServletRequest("POST", "/api/polls/1/votes");
+        withRoles.addHeader(TrustedHeaderAuthFilter.HDR_EMAIL, "bench@example.com");
+        withRoles.addHeader(TrustedHeaderAuthFilter.HDR_ROLES, "USER, ADMIN,ROLE_AUDITOR");
+        anonymous = new MockHttpServletRequest("GET", "/api/polls");
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void authenticatedWithRoles(Blackhole bh) throws Exception {
+        run(withRoles, bh);
+    }
+
+    @Benchmark
+    public void anonymous(Blackhole bh) throws Exception {
+        run(anonymous, bh);
+    }
+
+    private void run(MockHttpServletRequest request, Blackhole bh) throws Exception {
+        filter.doFilter(request, response, chain);
+        request.removeAttribute(ALREADY_FILTERED);
+        bh.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -2,8 +2,12 @@ package com.microservices.limitsservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import com.microservices.limitsservice.config.LimitClassProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(LimitClassProperties.class)
 public class LimitsServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,29 @@
+package com.microservices.limitsservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Token-bucket rates per rate-limit class ({@code limits.classes.<class>}). The gateway sends the class
+ * of the matched security rule; requests of one client in one class share a bucket regardless of path.
+ */
+@ConfigurationProperties(prefix = "limits")
+public record LimitClassProperties(Map<String, ClassRates> classes) {
+
+    public LimitClassProperties {
+        classes = classes == null ? Map.of() : Map.copyOf(classes);
+    }
+
+    public record Rate(int replenishRate, int burstCapacity) {}
+
+    public record ClassRates(Rate anonymous, Rate authenticated) {}
+
+    /** Rates for the class and caller type, or {@code null} if the class is not configured. */
+    public Rate rateFor(String limitClass, boolean authenticated) {
+        ClassRates rates = classes.get(limitClass);
+        if (rates == null) return null;
+        Rate rate = authenticated ? rates.authenticated() : rates.anonymous();
+        return rate != null ? rate : (authenticated ? rates.anonymous() : rates.authenticated());
+    }
+}
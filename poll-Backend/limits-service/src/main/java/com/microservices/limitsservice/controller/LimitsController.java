@@ -3,6 +3,7 @@ package com.microservices.limitsservice.controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Map;
+import com.microservices.limitsservice.config.LimitClassProperties;
 import com.microservices.limitsservice.service.RateLimiterService;
 
 @RestController
@@ -13,10 +14,12 @@ public class LimitsController {
     record RouteLimits(Rate anonymous, Rate authenticated) {}
 
     private final RateLimiterService limiter;
+    private final LimitClassProperties limitClasses;
 
     @Autowired
-    public LimitsController(RateLimiterService limiter) {
+    public LimitsController(RateLimiterService limiter, LimitClassProperties limitClasses) {
         this.limiter = limiter;
+        this.limitClasses = limitClasses;
     }
 
     @GetMapping("/route")
@@ -51,7 +54,17 @@ public class LimitsController {
             rate = route.startsWith("/api/") ? new Rate(30, 60) : new Rate(20, 40);
         }
 
-        var result = limiter.tryConsume(key, route, weight, rate.replenishRate, rate.burstCapacity);
+        Object limitClass = req.get("limitClass");
+        String bucket = route;
+        if (limitClass != null && !limitClass.toString().isBlank()) {
+            bucket = RateLimiterService.CLASS_PREFIX + limitClass;
+            var classRate = limitClasses.rateFor(limitClass.toString(), key.startsWith("user:"));
+            if (classRate != null) {
+                rate = new Rate(classRate.replenishRate(), classRate.burstCapacity());
+            }
+        }
+
+        var result = limiter.tryConsume(key, bucket, weight, rate.replenishRate, rate.burstCapacity);
         return Map.of(
                 "allowed", result.allowed(),
                 "remaining", result.remaining(),
@@ -6,16 +6,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import com.microservices.limitsservice.config.LimitClassProperties;
 import com.microservices.limitsservice.service.RateLimiterService;
 
 @RestController
 public class LimitsRootController {
 
     private final RateLimiterService limiter;
+    private final LimitClassProperties limitClasses;
 
     @Autowired
-    public LimitsRootController(RateLimiterService limiter) {
+    public LimitsRootController(RateLimiterService limiter, LimitClassProperties limitClasses) {
         this.limiter = limiter;
+        this.limitClasses = limitClasses;
     }
 
     @PostMapping(path = "/limits/check")
@@ -36,7 +39,19 @@ public class LimitsRootController {
             burst = route.startsWith("/api/") ? 60 : 40;
         }
 
-        var result = limiter.tryConsume(key, route, weight, replenish, burst);
+        // Gateway-assigned class: one bucket per client and class, rates from limits.classes
+        Object limitClass = req.get("limitClass");
+        String bucket = route;
+        if (limitClass != null && !limitClass.toString().isBlank()) {
+            bucket = RateLimiterService.CLASS_PREFIX + limitClass;
+            var rate = limitClasses.rateFor(limitClass.toString(), key.startsWith("user:"));
+            if (rate != null) {
+                replenish = rate.replenishRate();
+                burst = rate.burstCapacity();
+            }
+        }
+
+        var result = limiter.tryConsume(key, bucket, weight, replenish, burst);
         return Map.of(
                 "allowed", result.allowed(),
                 "remaining", result.remaining(),
@@ -1,6 +1,7 @@
 package com.microservices.limitsservice.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
@@ -16,6 +17,9 @@ public class RateLimiterService {
 
     public record ConsumeResult(boolean allowed, int remaining, int limit, int resetSeconds) {}
 
+    /** Prefix of the route argument when the bucket is a gateway rate-limit class rather than a path. */
+    public static final String CLASS_PREFIX = "class:";
+
     static class TokenBucket {
         final int capacity;
         final int refillPerSecond;
@@ -54,6 +58,10 @@ public class RateLimiterService {
 
     public RateLimiterService(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
+        // one bucket per client key and class; grows with key cardinality
+        Gauge.builder("limits.buckets", buckets, ConcurrentMap::size)
+                .description("Token buckets held in memory")
+                .register(meterRegistry);
     }
 
     public ConsumeResult tryConsume(String key, String route, int weight, int replenishRate, int burstCapacity) {
@@ -66,7 +74,9 @@ public class RateLimiterService {
 
         // Low-cardinality tags
         String userType = key != null && key.startsWith("user:") ? "user" : "anon";
-        String routeGroup = route != null && route.startsWith("/api/") ? "api" : "other";
+        String routeGroup = route == null ? "other"
+                : route.startsWith(CLASS_PREFIX) ? route.substring(CLASS_PREFIX.length())
+                : route.startsWith("/api/") ? "api" : "other";
 
         // Timers for latency
         Timer.builder("limits.request")
@@ -0,0 +1,120 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route latency histograms (microseconds), status codes and rate-limit decisions.
+ */
+public class LoadReport {
+
+    /** How the gateway's rate limiter treated a request, inferred from the response. */
+    public enum Decision {
+        ALLOWED,      // X-Rate-Remaining present
+        LIMITED,      // 429
+        UNAVAILABLE,  // 503 from the limiter or an overloaded upstream
+        UNCHECKED     // route without a rate limit
+    }
+
+    private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<String, RouteStats> routes = new ConcurrentSkipListMap<>();
+    private final Map<Decision, LongAdder> decisions = new ConcurrentHashMap<>();
+    private final LongAdder droppedArrivals = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+
+    static final class RouteStats {
+        final Histogram latencyUs = new ConcurrentHistogram(MAX_LATENCY_US, 3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+    }
+
+    public void record(String route, int status, Decision decision, long latencyNanos) {
+        var stats = routes.computeIfAbsent(route, r -> new RouteStats());
+        stats.latencyUs.recordValue(Math.min(MAX_LATENCY_US, Math.max(1, latencyNanos / 1_000)));
+        stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        decisions.computeIfAbsent(decision, d -> new LongAdder()).increment();
+    }
+
+    public void recordTransportError(String route, long latencyNanos) {
+        transportErrors.increment();
+        record(route, 0, Decision.UNCHECKED, latencyNanos);
+    }
+
+    public void recordDroppedArrival() {
+        droppedArrivals.increment();
+    }
+
+    public Map<String, Object> summary(double durationSeconds) {
+        var out = new LinkedHashMap<String, Object>();
+        var perRoute = new LinkedHashMap<String, Object>();
+        routes.forEach((route, stats) -> {
+            var h = stats.latencyUs;
+            var r = new LinkedHashMap<String, Object>();
+            r.put("count", h.getTotalCount());
+            r.put("throughputPerSec", round(h.getTotalCount() / durationSeconds));
+            r.put("p50Ms", ms(h.getValueAtPercentile(50)));
+            r.put("p99Ms", ms(h.getValueAtPercentile(99)));
+            r.put("p999Ms", ms(h.getValueAtPercentile(99.9)));
+            r.put("maxMs", ms(h.getMaxValue()));
+            var statuses = new LinkedHashMap<String, Long>();
+            stats.statuses.forEach((s, n) -> statuses.put(s == 0 ? "error" : String.valueOf(s), n.sum()));
+            r.put("statuses", statuses);
+            perRoute.put(route, r);
+        });
+        out.put("durationSeconds", round(durationSeconds));
+        out.put("routes", perRoute);
+        var rl = new LinkedHashMap<String, Long>();
+        for (Decision d : Decision.values()) {
+            rl.put(d.name().toLowerCase(), decisions.getOrDefault(d, new LongAdder()).sum());
+        }
+        out.put("rateLimitDecisions", rl);
+        out.put("droppedArrivals", droppedArrivals.sum());
+        out.put("transportErrors", transportErrors.sum());
+        return out;
+    }
+
+    public void print(PrintStream out, double durationSeconds) {
+        out.printf("%n%-28s %9s %9s %9s %9s %9s %9s%n", "route", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        routes.forEach((route, stats) -> {
+            var h = stats.latencyUs;
+            out.printf("%-28s %9d %9.1f %9.2f %9.2f %9.2f %9.2f%n", route, h.getTotalCount(),
+                    h.getTotalCount() / durationSeconds, ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+            var statuses = new StringBuilder();
+            stats.statuses.forEach((s, n) -> statuses.append(s == 0 ? "error" : s).append('=').append(n.sum()).append(' '));
+            out.printf("%-28s statuses: %s%n", "", statuses.toString().trim());
+        });
+        out.print("rate-limit decisions:");
+        for (Decision d : Decision.values()) {
+            out.printf(" %s=%d", d.name().toLowerCase(), decisions.getOrDefault(d, new LongAdder()).sum());
+        }
+        out.printf("%ndropped arrivals (client in-flight cap): %d, transport errors: %d%n",
+                droppedArrivals.sum(), transportErrors.sum());
+    }
+
+    public void writeJson(Path file, double durationSeconds) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary(durationSeconds));
+    }
+
+    private static double ms(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
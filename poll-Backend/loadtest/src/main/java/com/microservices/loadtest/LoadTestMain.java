@@ -0,0 +1,90 @@
+package com.microservices.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point: boots the local stack, seeds data, drives one scenario and prints the report.
+ *
+ * <pre>
+ * --scenario=list-heavy|vote-storm|login-burst   (default list-heavy)
+ * --rate=200            arrivals per second
+ * --duration=60         seconds of measured load
+ * --warmup=10           seconds of unmeasured load first
+ * --users=500 --polls=50
+ * --max-in-flight=5000  client-side cap; arrivals above it are reported as dropped
+ * --poll-instances=1    poll-service instances behind the gateway
+ * --slow-poll-ms=0      latency injected into the last poll-service instance
+ * --lb=peak-ewma        gateway load balancer for poll-service (peak-ewma|round-robin)
+ * --vthreads            poll-service and user-service on virtual threads (their vthreads profile)
+ * --db-pool-size=0      Hikari pool size of poll-service and user-service (0 = the mode's default)
+ * --out=target/loadtest-&lt;scenario&gt;.json
+ * </pre>
+ */
+public class LoadTestMain {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestMain.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        Scenario scenario = Scenario.parse(opts.getOrDefault("scenario", "list-heavy"));
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("warmup", "10")));
+        int users = Integer.parseInt(opts.getOrDefault("users", "500"));
+        int polls = Integer.parseInt(opts.getOrDefault("polls", "50"));
+        int maxInFlight = Integer.parseInt(opts.getOrDefault("max-in-flight", "5000"));
+        int pollInstances = Integer.parseInt(opts.getOrDefault("poll-instances", "1"));
+        long slowPollMs = Long.parseLong(opts.getOrDefault("slow-poll-ms", "0"));
+        String loadBalancer = opts.getOrDefault("lb", "peak-ewma");
+        boolean virtualThreads = Boolean.parseBoolean(opts.getOrDefault("vthreads", "false"));
+        int dbPoolSize = Integer.parseInt(opts.getOrDefault("db-pool-size", "0"));
+        Path out = Path.of(opts.getOrDefault("out", "target/loadtest-" + scenario.name().toLowerCase() + ".json"));
+
+        var http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        try (var stack = new LocalStack(pollInstances, slowPollMs, loadBalancer, virtualThreads, dbPoolSize).start()) {
+            log.info("Seeding {} users and {} polls", users, polls);
+            var data = new Seeder(http).seed(stack, users, polls);
+
+            if (!warmup.isZero()) {
+                log.info("Warm-up: {} at {}/s for {}s", scenario, rate, warmup.toSeconds());
+                new OpenModelDriver(http, new LoadReport(), maxInFlight).run(scenario, stack.gatewayUrl(), data, rate, warmup);
+            }
+
+            log.info("Measuring: {} at {}/s for {}s", scenario, rate, duration.toSeconds());
+            var report = new LoadReport();
+            long started = System.nanoTime();
+            new OpenModelDriver(http, report, maxInFlight).run(scenario, stack.gatewayUrl(), data, rate, duration);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            System.out.printf("%nScenario %s, offered %.0f req/s%n", scenario, rate);
+            report.print(System.out, seconds);
+            report.writeJson(out, seconds);
+            log.info("Report written to {}", out.toAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        var opts = new HashMap<String, String>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) opts.put(arg.substring(2), "true");
+            else opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+}
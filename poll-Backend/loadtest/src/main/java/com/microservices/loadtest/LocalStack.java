@@ -0,0 +1,149 @@
+package com.microservices.loadtest;
+
+import com.example.pollservice.PollServiceApplication;
+import com.microservices.apigateway.ApiGatewayApplication;
+import com.microservices.limitsservice.LimitsServiceApplication;
+import com.microservices.userservice.UserServiceApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots limits-service, poll-service, user-service and the gateway in this JVM, each in its own
+ * application context on a random port, with H2 instead of MariaDB and static discovery instead of Eureka.
+ * Every service reads only {@code classpath:/loadtest/common.yml} plus its own file, so the
+ * application.yml files packaged in the service jars are ignored.
+ * <p>
+ * With more than one poll-service instance, the extra instances share the first one's H2 database (same
+ * JVM, same in-memory name) and leave its schema alone; the last one can be made artificially slow to
+ * compare gateway load-balancing strategies.
+ * <p>
+ * With virtual threads on, poll-service and user-service also read {@code classpath:/loadtest/vthreads.yml},
+ * the harness copy of their {@code vthreads} profile (the packaged profile files are ignored like the rest).
+ */
+public class LocalStack implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStack.class);
+
+    /** Spring Cloud Gateway needs Reactor Netty; Tomcat is also on this classpath and would win otherwise. */
+    @Configuration(proxyBeanMethods = false)
+    static class NettyServerConfig {
+        @Bean
+        NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+            return new NettyReactiveWebServerFactory();
+        }
+    }
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final int pollInstances;
+    private final long slowPollLatencyMs;
+    private final String loadBalancer;
+    private final boolean virtualThreads;
+    private final int dbPoolSize;
+    private int limitsPort;
+    private int pollPort;
+    private final List<Integer> pollPorts = new ArrayList<>();
+    private int userPort;
+    private int gatewayPort;
+
+    public LocalStack() {
+        this(1, 0, "peak-ewma", false, 0);
+    }
+
+    /**
+     * @param pollInstances     poll-service instances behind {@code lb://poll-service}
+     * @param slowPollLatencyMs latency injected into the last extra instance (0 = none)
+     * @param loadBalancer      {@code gateway.loadbalancer.strategy} of the gateway
+     * @param virtualThreads    serve poll-service and user-service requests on virtual threads
+     * @param dbPoolSize        Hikari {@code maximum-pool-size} of poll-service and user-service (0 = default)
+     */
+    public LocalStack(int pollInstances, long slowPollLatencyMs, String loadBalancer,
+                      boolean virtualThreads, int dbPoolSize) {
+        this.pollInstances = Math.max(1, pollInstances);
+        this.slowPollLatencyMs = slowPollLatencyMs;
+        this.loadBalancer = loadBalancer;
+        this.virtualThreads = virtualThreads;
+        this.dbPoolSize = dbPoolSize;
+    }
+
+    public LocalStack start() {
+        long started = System.nanoTime();
+
+        limitsPort = port(boot("limits-service", WebApplicationType.SERVLET, LimitsServiceApplication.class));
+        pollPort = port(boot("poll-service", WebApplicationType.SERVLET, PollServiceApplication.class));
+        pollPorts.add(pollPort);
+        for (int i = 1; i < pollInstances; i++) {
+            boolean slow = i == pollInstances - 1 && slowPollLatencyMs > 0;
+            pollPorts.add(port(boot("poll-service", WebApplicationType.SERVLET,
+                    new Class<?>[]{PollServiceApplication.class, InjectedLatency.class},
+                    // the schema belongs to the first instance; create-drop here would drop it on close
+                    "spring.jpa.hibernate.ddl-auto=none",
+                    "loadtest.injected-latency-ms=" + (slow ? slowPollLatencyMs : 0))));
+        }
+        userPort = port(boot("user-service", WebApplicationType.SERVLET, UserServiceApplication.class));
+
+        var gatewayProperties = new ArrayList<>(List.of(
+                "services.user-service-base-url=lb://user-service",
+                "gateway.loadbalancer.strategy=" + loadBalancer,
+                "spring.cloud.discovery.client.simple.instances.limits-service[0].uri=http://localhost:" + limitsPort,
+                "spring.cloud.discovery.client.simple.instances.user-service[0].uri=http://localhost:" + userPort));
+        for (int i = 0; i < pollPorts.size(); i++) {
+            gatewayProperties.add("spring.cloud.discovery.client.simple.instances.poll-service[" + i + "].uri=http://localhost:" + pollPorts.get(i));
+        }
+        gatewayPort = port(boot("api-gateway", WebApplicationType.REACTIVE,
+                new Class<?>[]{ApiGatewayApplication.class, NettyServerConfig.class},
+                gatewayProperties.toArray(String[]::new)));
+
+        log.info("Stack up in {} ms: gateway={} ({}) limits={} poll={} user={} threads={}",
+                (System.nanoTime() - started) / 1_000_000, gatewayPort, loadBalancer, limitsPort, pollPorts, userPort,
+                virtualThreads ? "virtual" : "platform");
+        return this;
+    }
+
+    public String gatewayUrl() { return "http://localhost:" + gatewayPort; }
+    public String pollServiceUrl() { return "http://localhost:" + pollPort; }
+    public String userServiceUrl() { return "http://localhost:" + userPort; }
+
+    private ConfigurableApplicationContext boot(String name, WebApplicationType type, Class<?> source, String... extra) {
+        return boot(name, type, new Class<?>[]{source}, extra);
+    }
+
+    private ConfigurableApplicationContext boot(String name, WebApplicationType type, Class<?>[] sources, String... extra) {
+        boolean servlet = name.equals("poll-service") || name.equals("user-service");
+        var properties = new ArrayList<String>();
+        properties.add("spring.config.location=classpath:/loadtest/common.yml,classpath:/loadtest/" + name + ".yml"
+                + (servlet && virtualThreads ? ",classpath:/loadtest/vthreads.yml" : ""));
+        if (servlet && dbPoolSize > 0) {
+            properties.add("spring.datasource.hikari.maximum-pool-size=" + dbPoolSize);
+        }
+        properties.addAll(List.of(extra));
+        var context = new SpringApplicationBuilder(sources)
+                .web(type)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        contexts.add(context);
+        return context;
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        // gateway first, then the services behind it
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        contexts.clear();
+    }
+}
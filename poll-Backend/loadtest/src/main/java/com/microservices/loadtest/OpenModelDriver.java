@@ -0,0 +1,79 @@
+package com.microservices.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests arrive as a Poisson process at the target rate regardless
+ * of how fast earlier requests complete, so server-side queueing shows up as latency instead of
+ * silently lowering the offered load (no coordinated omission). Arrivals beyond the in-flight cap
+ * are counted as dropped rather than delayed.
+ */
+public class OpenModelDriver {
+
+    private final HttpClient http;
+    private final LoadReport report;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OpenModelDriver(HttpClient http, LoadReport report, int maxInFlight) {
+        this.http = http;
+        this.report = report;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void run(Scenario scenario, String gateway, Seeder.SeedData data, double ratePerSecond, Duration duration) {
+        var rnd = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double meanGapNanos = 1_000_000_000.0 / ratePerSecond;
+        long nextArrival = start;
+
+        while (nextArrival < end) {
+            long wait = nextArrival - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            fire(scenario.next(gateway, data, rnd), nextArrival);
+            // exponential inter-arrival times
+            nextArrival += (long) (-Math.log(1.0 - rnd.nextDouble()) * meanGapNanos);
+        }
+
+        // let in-flight requests finish (bounded)
+        long drainDeadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+    }
+
+    private void fire(Scenario.Request request, long scheduledAt) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            report.recordDroppedArrival();
+            return;
+        }
+        // latency is measured from the scheduled arrival, not from the actual send
+        http.sendAsync(request.request(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    long latency = System.nanoTime() - scheduledAt;
+                    if (error != null) {
+                        report.recordTransportError(request.route(), latency);
+                        return;
+                    }
+                    report.record(request.route(), response.statusCode(), decision(response), latency);
+                });
+    }
+
+    private static LoadReport.Decision decision(HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status == 429) return LoadReport.Decision.LIMITED;
+        if (status == 503) return LoadReport.Decision.UNAVAILABLE;
+        if (response.headers().firstValue("X-Rate-Remaining").isPresent()) return LoadReport.Decision.ALLOWED;
+        return LoadReport.Decision.UNCHECKED;
+    }
+}
@@ -0,0 +1,78 @@
+package com.microservices.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request mixes driven through the gateway. Each arrival picks one request; the route label
+ * groups results in the report (path templates, never raw ids).
+ */
+public enum Scenario {
+
+    /** Home page traffic: mostly anonymous list reads, some detail reads, a trickle of votes. */
+    LIST_HEAVY {
+        @Override
+        Request next(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd) {
+            int roll = rnd.nextInt(100);
+            if (roll < 80) return listPolls(gateway);
+            if (roll < 95) return getPoll(gateway, data, rnd);
+            return vote(gateway, data, rnd);
+        }
+    },
+
+    /** A few hot polls receiving votes from many users, with detail reads to watch the counts. */
+    VOTE_STORM {
+        @Override
+        Request next(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd) {
+            return rnd.nextInt(100) < 90 ? vote(gateway, data, rnd) : getPoll(gateway, data, rnd);
+        }
+    },
+
+    /** Sign-in burst: bcrypt-bound user-service traffic through the public auth route. */
+    LOGIN_BURST {
+        @Override
+        Request next(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd) {
+            var user = data.users().get(rnd.nextInt(data.users().size()));
+            String body = "{\"email\":\"" + user.email() + "\",\"password\":\"" + user.password() + "\"}";
+            return new Request("POST /auth/sign-in", HttpRequest.newBuilder(URI.create(gateway + "/auth/sign-in"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build());
+        }
+    };
+
+    public record Request(String route, HttpRequest request) {}
+
+    abstract Request next(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd);
+
+    public static Scenario parse(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    static Request listPolls(String gateway) {
+        return new Request("GET /api/polls", HttpRequest.newBuilder(URI.create(gateway + "/api/polls")).GET().build());
+    }
+
+    static Request getPoll(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd) {
+        var poll = data.polls().get(rnd.nextInt(data.polls().size()));
+        var user = data.users().get(rnd.nextInt(data.users().size()));
+        return new Request("GET /api/polls/{id}", HttpRequest.newBuilder(URI.create(gateway + "/api/polls/" + poll.id()))
+                .header("Authorization", "Bearer " + user.token())
+                .GET()
+                .build());
+    }
+
+    static Request vote(String gateway, Seeder.SeedData data, ThreadLocalRandom rnd) {
+        // concentrate votes on the first few polls to create hot spots
+        int hot = Math.min(3, data.polls().size());
+        var poll = data.polls().get(rnd.nextInt(hot));
+        var user = data.users().get(rnd.nextInt(data.users().size()));
+        long optionId = poll.optionIds().get(rnd.nextInt(poll.optionIds().size()));
+        return new Request("POST /api/polls/{id}/votes", HttpRequest.newBuilder(URI.create(gateway + "/api/polls/" + poll.id() + "/votes"))
+                .header("Authorization", "Bearer " + user.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"optionId\":" + optionId + "}"))
+                .build());
+    }
+}
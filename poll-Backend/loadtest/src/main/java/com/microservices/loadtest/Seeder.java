@@ -0,0 +1,72 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates users and polls directly against user-service and poll-service (bypassing the gateway
+ * and its rate limits) and signs every user in once so scenarios can send authenticated requests.
+ */
+public class Seeder {
+
+    public record SeedUser(long id, String email, String password, String token) {}
+    public record SeedPoll(long id, List<Long> optionIds) {}
+    public record SeedData(List<SeedUser> users, List<SeedPoll> polls) {}
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public Seeder(HttpClient http) {
+        this.http = http;
+    }
+
+    public SeedData seed(LocalStack stack, int userCount, int pollCount) throws IOException, InterruptedException {
+        var users = new ArrayList<SeedUser>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String email = "load" + i + "@example.com";
+            String password = "Load-" + i + "-pass";
+            post(stack.userServiceUrl() + "/auth/sign-up", Map.of("name", "Load " + i, "email", email, "password", password), Map.of());
+            JsonNode auth = post(stack.userServiceUrl() + "/auth/sign-in", Map.of("email", email, "password", password), Map.of());
+            users.add(new SeedUser(i + 1L, email, password, auth.path("accessToken").asText()));
+        }
+
+        var polls = new ArrayList<SeedPoll>(pollCount);
+        String expiresAt = Instant.now().plus(1, ChronoUnit.DAYS).toString();
+        for (int i = 0; i < pollCount; i++) {
+            var creator = users.get(i % users.size());
+            JsonNode created = post(stack.pollServiceUrl() + "/api/polls",
+                    Map.of("question", "Load test poll number " + i,
+                            "options", List.of("Red", "Green", "Blue", "Yellow"),
+                            "expiresAt", expiresAt),
+                    Map.of("X-User-Email", creator.email(), "X-User-Roles", "USER"));
+            var optionIds = new ArrayList<Long>();
+            created.path("options").forEach(o -> optionIds.add(o.path("id").asLong()));
+            polls.add(new SeedPoll(created.path("id").asLong(), optionIds));
+        }
+        return new SeedData(users, polls);
+    }
+
+    private JsonNode post(String url, Object body, Map<String, String> headers) throws IOException, InterruptedException {
+        var builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+        headers.forEach(builder::header);
+        HttpResponse<byte[]> response = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Seeding " + url + " failed with " + response.statusCode()
+                    + ": " + new String(response.body()));
+        }
+        return response.body().length == 0 ? mapper.createObjectNode() : mapper.readTree(response.body());
+    }
+}
@@ -2,22 +2,46 @@ package com.example.pollservice.api;
 
 import com.example.pollservice.api.dto.CreatePollRequest;
 import com.example.pollservice.api.dto.PollResponse;
+import com.example.pollservice.api.dto.TrendingPollResponse;
 import com.example.pollservice.api.dto.VoteRequest;
+import com.example.pollservice.poll.PollBulkImporter;
+import com.example.pollservice.poll.PollExporter;
+import com.example.pollservice.poll.PollSearchIndex;
 import com.example.pollservice.poll.PollService;
+import com.example.pollservice.poll.TrendingIndex;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api")
 public class PollController {
 
     private final PollService polls;
-    public PollController(PollService polls) { this.polls = polls; }
+    private final PollBulkImporter bulkImporter;
+    private final PollExporter exporter;
+    private final TrendingIndex trending;
+    private final PollSearchIndex search;
+
+    public PollController(PollService polls, PollBulkImporter bulkImporter, PollExporter exporter,
+                          TrendingIndex trending, PollSearchIndex search) {
+        this.polls = polls;
+        this.bulkImporter = bulkImporter;
+        this.exporter = exporter;
+        this.trending = trending;
+        this.search = search;
+    }
 
     // PUBLIC (auth optional so UI can learn hasVoted/userOptionId)
     @GetMapping("/polls")
@@ -26,6 +50,55 @@ public class PollController {
         return polls.listAllForUser(email);
     }
 
+    // PUBLIC (auth optional) — indexed query on status, soonest-expiring first
+    @GetMapping("/polls/active")
+    public List<PollResponse> active(Authentication auth) {
+        var email = auth != null ? auth.getName() : null;
+        return polls.listActive(email);
+    }
+
+    // PUBLIC — top polls by decayed vote rate, served from memory (no database access)
+    @GetMapping("/polls/trending")
+    public List<TrendingPollResponse> trending(@RequestParam(defaultValue = "10") int limit) {
+        return trending.top(limit);
+    }
+
+    // PUBLIC (auth optional) — full-text search over questions and options; last word matches as a prefix
+    @GetMapping("/polls/search")
+    public List<PollResponse> search(@RequestParam("q") String q,
+                                     @RequestParam(defaultValue = "20") int limit,
+                                     Authentication auth) {
+        var email = auth != null ? auth.getName() : null;
+        return polls.listByIdsForUser(search.search(q, limit), email);
+    }
+
+    // PUBLIC — results of every poll streamed from a JDBC cursor; ?format=ndjson|csv, gzip if accepted
+    @GetMapping("/polls/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        var fmt = PollExporter.Format.parse(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return streaming(fmt, gzip, "polls", out -> exporter.exportResults(fmt, out));
+    }
+
+    // AUTH REQUIRED — raw vote log of one poll (live + archived); creator or ADMIN only
+    @GetMapping("/polls/{id}/votes/export")
+    public ResponseEntity<StreamingResponseBody> exportVotes(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication auth) {
+        if (auth == null) {
+            return ResponseEntity.status(401).build();
+        }
+        boolean admin = auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        exporter.checkVoteExportAllowed(id, auth.getName(), admin);
+        var fmt = PollExporter.Format.parse(format);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return streaming(fmt, gzip, "poll-" + id + "-votes", out -> exporter.exportVotes(id, fmt, out));
+    }
+
     // PUBLIC (auth optional)
     @GetMapping("/polls/{id}")
     public PollResponse get(@PathVariable Long id, Authentication auth) {
@@ -41,6 +114,16 @@ public class PollController {
         return ResponseEntity.created(URI.create("/api/polls/" + created.id())).body(created);
     }
 
+    // AUTH REQUIRED — bulk create from a JSON array or NDJSON; streams one NDJSON result per item
+    @PostMapping(path = "/polls/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkCreate(InputStream body, Authentication auth) {
+        var email = auth.getName();
+        StreamingResponseBody results = out -> bulkImporter.importPolls(body, email, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
     // AUTH REQUIRED — user's own polls
     @GetMapping("/polls/mine")
     public List<PollResponse> mine(Authentication auth) {
@@ -53,6 +136,36 @@ public class PollController {
         return polls.listMine(auth.getName());
     }
 
+    private interface ExportBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> streaming(PollExporter.Format fmt, boolean gzip,
+                                                                   String fileName, ExportBody body) {
+        var builder = ResponseEntity.ok()
+                .contentType(fmt == PollExporter.Format.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "."
+                        + fmt.name().toLowerCase() + "\"");
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        StreamingResponseBody stream = out -> {
+            if (gzip) {
+                try (var zipped = new GZIPOutputStream(out, 64 * 1024)) {
+                    body.writeTo(zipped);
+                }
+            } else {
+                body.writeTo(out);
+            }
+        };
+        return builder.body(stream);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
     // AUTH REQUIRED — one vote per user
     @PostMapping("/polls/{id}/votes")
     public ResponseEntity<PollResponse> vote(@PathVariable Long id,
@@ -10,7 +10,7 @@ public record PollResponse(
         Long id,
         String question,
         Instant expiresAt,
-        String status,           // ACTIVE | EXPIRED
+        String status,           // ACTIVE | EXPIRED (PollStatus)
         long totalVotes,
         List<OptionDto> options,
 
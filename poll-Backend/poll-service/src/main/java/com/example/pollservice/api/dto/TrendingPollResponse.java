@@ -0,0 +1,14 @@
+package com.example.pollservice.api.dto;
+
+import java.time.Instant;
+
+/**
+ * Entry of {@code GET /api/polls/trending}. {@code score} is the poll's exponentially decayed vote count:
+ * a vote cast now counts 1 and half as much every {@code polls.trending.half-life-minutes}.
+ */
+public record TrendingPollResponse(
+        Long id,
+        String question,
+        Instant expiresAt,
+        double score
+) {}
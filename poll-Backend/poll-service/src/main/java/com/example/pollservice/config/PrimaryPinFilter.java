@@ -0,0 +1,105 @@
+package com.example.pollservice.config;
+
+import com.example.pollservice.poll.VoteCastEvent;
+import com.example.pollservice.security.TrustedHeaderAuthFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Read-your-writes for voters: after a vote, that user's requests read from the primary for
+ * {@code polls.datasource.pin-window}, so {@code hasVoted} and the counts include their vote even while
+ * replicas are catching up. Other users keep reading from replicas.
+ * <p>
+ * The pin travels with the client: the vote response sets a short-lived {@value #COOKIE} cookie holding
+ * the pin's expiry, so the voter's next read is pinned on whichever instance the gateway picks. An expiry
+ * further out than one window is ignored, so a hand-made cookie cannot pin a client for longer. Clients
+ * that drop cookies are still pinned on the instance that took their vote. The window only needs to
+ * outlast replica lag, not be exact.
+ */
+public class PrimaryPinFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "poll_pin";
+
+    private final Duration pinWindow;
+    private final Cache<String, Boolean> recentVoters;
+
+    public PrimaryPinFilter(Duration pinWindow) {
+        this.pinWindow = pinWindow;
+        this.recentVoters = Caffeine.newBuilder()
+                .expireAfterWrite(pinWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    // on publish rather than after commit: pinning a voter whose vote then rolls back only costs a primary read;
+    // published inside the vote request, before its response is written
+    @EventListener
+    public void onVoteCast(VoteCastEvent event) {
+        recentVoters.put(key(event.voter()), Boolean.TRUE);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            HttpServletRequest request = attributes.getRequest();
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, String.valueOf(System.currentTimeMillis() + pinWindow.toMillis()))
+                    .path("/")
+                    .maxAge(Duration.ofSeconds(Math.max(1, (pinWindow.toMillis() + 999) / 1000)))
+                    .httpOnly(true)
+                    .secure(request.isSecure())
+                    .sameSite("Lax")
+                    .build();
+            attributes.getResponse().addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!pinned(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+    }
+
+    private boolean pinned(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            long now = System.currentTimeMillis();
+            for (Cookie cookie : cookies) {
+                if (!COOKIE.equals(cookie.getName())) continue;
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    if (until > now && until <= now + pinWindow.toMillis()) return true;
+                } catch (NumberFormatException ignored) {
+                    // not ours; fall through to the local pin
+                }
+            }
+        }
+        String email = request.getHeader(TrustedHeaderAuthFilter.HDR_EMAIL);
+        return email != null && !email.isBlank() && recentVoters.getIfPresent(key(email)) != null;
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.pollservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures replication lag with a heartbeat row: every {@code heartbeat-interval} the primary's
+ * {@code replica_heartbeat} row is stamped with the current time, and each replica's copy is read back.
+ * The difference is the replica's lag (within one interval). Replicas that are within {@code max-lag}
+ * are published to {@link ReplicaRoutingDataSource}; unreachable replicas, or ones that have not yet
+ * replicated the row, get no reads.
+ * <p>
+ * Several instances stamping the same row is harmless: the newest stamp wins and lag stays an upper bound.
+ */
+public class ReplicaLagMonitor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String CREATE_TABLE =
+            "create table if not exists replica_heartbeat (id int not null primary key, beat_millis bigint not null)";
+    private static final String STAMP = "update replica_heartbeat set beat_millis = ? where id = 1";
+    private static final String INSERT = "insert into replica_heartbeat (id, beat_millis) values (1, ?)";
+    private static final String READ = "select beat_millis from replica_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> lagMillis = new LinkedHashMap<>();
+    private final long maxLagMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+
+    // no replica reads until the first check has seen them caught up
+    private volatile String[] healthy = new String[0];
+    private volatile boolean tableReady;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas,
+                             Duration maxLag, Duration heartbeatInterval, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.maxLagMillis = maxLag.toMillis();
+        this.intervalMillis = Math.max(100, heartbeatInterval.toMillis());
+        replicas.forEach((key, dataSource) -> {
+            var jdbc = new JdbcTemplate(dataSource);
+            jdbc.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(intervalMillis)));
+            this.replicas.put(key, jdbc);
+            var lag = new AtomicLong(-1);
+            this.lagMillis.put(key, lag);
+            Gauge.builder("db.replica.lag", lag, l -> l.get() < 0 ? Double.NaN : l.get())
+                    .tag("replica", key)
+                    .baseUnit("milliseconds")
+                    .description("Replication lag measured from the heartbeat row; NaN while unknown")
+                    .register(meterRegistry);
+        });
+        Gauge.builder("db.replica.healthy", this, m -> m.healthy.length)
+                .description("Replicas currently within the lag budget and receiving reads")
+                .register(meterRegistry);
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("replica-lag-monitor").factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::check, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Replica keys currently allowed to serve reads; never null. */
+    public String[] healthyReplicas() {
+        return healthy;
+    }
+
+    /** One heartbeat round; runs on the monitor thread every {@code heartbeat-interval}. */
+    public void check() {
+        stampPrimary();
+        long now = System.currentTimeMillis();
+        List<String> ok = new ArrayList<>(replicas.size());
+        replicas.forEach((key, jdbc) -> {
+            long lag = lagOf(key, jdbc, now);
+            lagMillis.get(key).set(lag);
+            if (lag >= 0 && lag <= maxLagMillis) ok.add(key);
+        });
+        String[] next = ok.toArray(String[]::new);
+        if (next.length != healthy.length) {
+            log.info("Replicas serving reads: {} of {} {}", next.length, replicas.size(), ok);
+        }
+        healthy = next;
+    }
+
+    private void stampPrimary() {
+        try {
+            if (!tableReady) {
+                primary.execute(CREATE_TABLE);
+                tableReady = true;
+            }
+            long now = System.currentTimeMillis();
+            if (primary.update(STAMP, now) == 0) {
+                primary.update(INSERT, now);
+            }
+        } catch (RuntimeException e) {
+            // replicas stop advancing too, so they age out of the healthy set on their own
+            log.warn("Could not write replication heartbeat: {}", e.toString());
+        }
+    }
+
+    private static long lagOf(String key, JdbcTemplate replica, long now) {
+        try {
+            List<Long> beat = replica.queryForList(READ, Long.class);
+            return beat.isEmpty() ? -1 : Math.max(0, now - beat.get(0));
+        } catch (RuntimeException e) {
+            log.debug("Replica {} heartbeat check failed: {}", key, e.toString());
+            return -1;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
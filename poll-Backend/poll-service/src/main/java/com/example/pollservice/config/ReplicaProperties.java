@@ -0,0 +1,26 @@
+package com.example.pollservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code polls.datasource.*}: read replicas behind the {@code spring.datasource} primary.
+ * <p>
+ * Replicas without credentials reuse the primary's username and password. A replica whose heartbeat is
+ * more than {@code max-lag} behind (or that cannot be reached) receives no reads until it catches up.
+ * After a user votes, that user's requests read from the primary for {@code pin-window}.
+ */
+@ConfigurationProperties(prefix = "polls.datasource")
+public record ReplicaProperties(List<Replica> replicas, Duration maxLag, Duration heartbeatInterval, Duration pinWindow) {
+
+    public ReplicaProperties {
+        replicas = replicas == null ? List.of() : List.copyOf(replicas);
+        if (maxLag == null) maxLag = Duration.ofSeconds(5);
+        if (heartbeatInterval == null) heartbeatInterval = Duration.ofSeconds(1);
+        if (pinWindow == null) pinWindow = Duration.ofSeconds(10);
+    }
+
+    public record Replica(String url, String username, String password, Integer maximumPoolSize) {}
+}
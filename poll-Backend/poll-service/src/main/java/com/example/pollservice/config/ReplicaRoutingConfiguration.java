@@ -0,0 +1,101 @@
+package com.example.pollservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting, active once {@code polls.datasource.replicas} lists at least one replica.
+ * <p>
+ * The application-facing {@link DataSource} is a {@link LazyConnectionDataSourceProxy} over a
+ * {@link ReplicaRoutingDataSource}: {@code @Transactional(readOnly = true)} work goes to a replica within
+ * the lag budget, everything else (writes, DDL, sequence allocation, non-transactional access) to the
+ * {@code spring.datasource} primary. Without replicas Boot's single pooled DataSource is used unchanged.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "polls.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /** One read-only pool per replica, shared by the lag monitor and the router. */
+    @Bean(destroyMethod = "close")
+    ReplicaPools replicaPools(DataSourceProperties primary, ReplicaProperties properties) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> replicas = properties.replicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primary.determineDriverClassName())
+                    .url(replica.url())
+                    .username(replica.username() != null ? replica.username() : primary.determineUsername())
+                    .password(replica.password() != null ? replica.password() : primary.determinePassword())
+                    .build();
+            String key = "replica-" + i;
+            pool.setPoolName(key);
+            pool.setReadOnly(true);
+            if (replica.maximumPoolSize() != null) pool.setMaximumPoolSize(replica.maximumPoolSize());
+            pools.put(key, pool);
+        }
+        return new ReplicaPools(pools);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               ReplicaPools replicaPools,
+                                               ReplicaProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primary, replicaPools.dataSources(),
+                properties.maxLag(), properties.heartbeatInterval(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 ReplicaPools replicaPools,
+                                 ReplicaLagMonitor lagMonitor,
+                                 MeterRegistry meterRegistry) {
+        var routing = new ReplicaRoutingDataSource(primary, replicaPools.dataSources(), lagMonitor, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public PrimaryPinFilter primaryPinFilter(ReplicaProperties properties) {
+        return new PrimaryPinFilter(properties.pinWindow());
+    }
+
+    record ReplicaPools(Map<String, HikariDataSource> pools) implements AutoCloseable {
+
+        Map<String, DataSource> dataSources() {
+            return new LinkedHashMap<String, DataSource>(pools);
+        }
+
+        @Override
+        public void close() {
+            pools.values().forEach(HikariDataSource::close);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pollservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * The key is decided when a physical connection is fetched, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks
+ * for a connection before it marks the transaction read-only, and the proxy defers the fetch to the
+ * first statement. Reads fall back to the primary when no replica is within the lag budget, outside a
+ * transaction, and while the current thread is {@linkplain #pinToPrimary() pinned}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // an unknown key is a bug, not something to paper over with the primary
+        setLenientFallback(false);
+        this.lagMonitor = lagMonitor;
+        this.primaryConnections = Counter.builder("db.routing.connections").tag("target", PRIMARY)
+                .description("Physical connections handed out by the replica routing DataSource")
+                .register(meterRegistry);
+        this.replicaConnections = Counter.builder("db.routing.connections").tag("target", "replica")
+                .description("Physical connections handed out by the replica routing DataSource")
+                .register(meterRegistry);
+    }
+
+    /** Routes this thread's read-only transactions to the primary until {@link #unpin()}. */
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PINNED.get() == null) {
+            String[] healthy = lagMonitor.healthyReplicas();
+            if (healthy.length > 0) {
+                replicaConnections.increment();
+                return healthy[Math.floorMod(next.getAndIncrement(), healthy.length)];
+            }
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.pollservice.poll;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A {@link Vote} moved out of the live {@code votes} table after its poll expired. Plain id columns
+ * (no foreign keys) so rows can be copied in bulk with INSERT ... SELECT.
+ */
+@Entity
+@Table(name = "votes_archive", indexes = @Index(name = "idx_votes_archive_poll_voter", columnList = "poll_id, voter"))
+public class ArchivedVote {
+    @Id
+    private Long id;
+
+    @Column(name = "poll_id", nullable = false)
+    private Long pollId;
+
+    @Column(name = "option_id", nullable = false)
+    private Long optionId;
+
+    @Column(nullable = false, length = 190)
+    private String voter;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // getters
+    public Long getId() { return id; }
+    public Long getPollId() { return pollId; }
+    public Long getOptionId() { return optionId; }
+    public String getVoter() { return voter; }
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,13 @@
+package com.example.pollservice.poll;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ArchivedVoteRepository extends JpaRepository<ArchivedVote, Long> {
+
+    /**
+     * The archived vote of a user in a poll (served by idx_votes_archive_poll_voter).
+     */
+    Optional<ArchivedVote> findFirstByPollIdAndVoter(Long pollId, String voter);
+}
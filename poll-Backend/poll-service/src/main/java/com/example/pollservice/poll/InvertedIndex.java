@@ -0,0 +1,341 @@
+package com.example.pollservice.poll;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Term → poll-id inverted index over poll questions and option texts.
+ * <p>
+ * Posting lists are ascending poll ids stored as varint-encoded deltas, with the field flags (question,
+ * option) packed into the low two bits of each delta. Ids that arrive out of order (another instance's
+ * sequence block, a rebuild racing live creates) go to a small per-term tail that is merged back when it
+ * fills up; duplicates are folded together on merge.
+ * <p>
+ * Queries AND their tokens; the last token also matches as a prefix unless the query ends with a
+ * separator. Hits are ranked by the sum of idf × field weight (question 2, option 1), newer polls first
+ * on ties. Thread-safe: one writer at a time, concurrent readers.
+ */
+public final class InvertedIndex {
+
+    static final int QUESTION = 1;
+    static final int OPTION = 2;
+
+    // prefix expansions per query; keeps one-letter prefixes bounded
+    private static final int MAX_EXPANSIONS = 64;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long documents;
+
+    /** Adds one poll; re-adding a poll is harmless but counts it twice for idf. */
+    public void add(long pollId, String question, Collection<String> options) {
+        Map<String, Integer> fields = fields(question, options);
+        if (fields.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            fields.forEach((term, flags) -> terms.computeIfAbsent(term, t -> new Postings()).add(pollId, flags));
+            documents++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Folds in an index built separately (e.g. one id range of a parallel rebuild). */
+    public void addAll(InvertedIndex other) {
+        lock.writeLock().lock();
+        try {
+            other.terms.forEach((term, postings) -> {
+                Postings current = terms.get(term);
+                if (current == null) {
+                    terms.put(term, postings.copy());
+                } else {
+                    current.merge(postings);
+                }
+            });
+            documents += other.documents;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long documents() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best-matching poll ids, most relevant first; empty for a query without tokens. */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokens(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        List<String> exact = lastIsPrefix ? tokens.subList(0, tokens.size() - 1) : tokens;
+        String prefix = lastIsPrefix ? tokens.get(tokens.size() - 1) : null;
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            double[] scores = null;
+
+            // exact tokens, rarest first so the candidate set shrinks as fast as possible
+            List<Postings> lists = new ArrayList<>(exact.size());
+            for (String token : exact) {
+                Postings postings = terms.get(token);
+                if (postings == null) return List.of();
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+            for (Postings postings : lists) {
+                long[] docs = postings.decode();
+                double idf = idf(postings.size());
+                if (candidates == null) {
+                    candidates = new long[docs.length];
+                    scores = new double[docs.length];
+                    for (int i = 0; i < docs.length; i++) {
+                        candidates[i] = docs[i] >>> 2;
+                        scores[i] = idf * weight((int) docs[i] & 3);
+                    }
+                } else {
+                    int n = 0;
+                    for (int i = 0, j = 0; i < candidates.length && j < docs.length; ) {
+                        long doc = docs[j] >>> 2;
+                        if (candidates[i] < doc) i++;
+                        else if (candidates[i] > doc) j++;
+                        else {
+                            candidates[n] = candidates[i];
+                            scores[n++] = scores[i] + idf * weight((int) docs[j] & 3);
+                            i++;
+                            j++;
+                        }
+                    }
+                    candidates = Arrays.copyOf(candidates, n);
+                    scores = Arrays.copyOf(scores, n);
+                }
+                if (candidates.length == 0) return List.of();
+            }
+
+            if (prefix != null) {
+                NavigableMap<String, Postings> expansions = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+                if (expansions.isEmpty()) return List.of();
+                if (candidates == null) {
+                    // prefix only: union of the expansions, best expansion per poll
+                    Map<Long, Double> union = new HashMap<>();
+                    int expanded = 0;
+                    for (Postings postings : expansions.values()) {
+                        if (expanded++ == MAX_EXPANSIONS) break;
+                        double idf = idf(postings.size());
+                        for (long packed : postings.decode()) {
+                            union.merge(packed >>> 2, idf * weight((int) packed & 3), Math::max);
+                        }
+                    }
+                    return top(union, limit);
+                }
+                double[] best = new double[candidates.length];
+                int expanded = 0;
+                for (Postings postings : expansions.values()) {
+                    if (expanded++ == MAX_EXPANSIONS) break;
+                    long[] docs = postings.decode();
+                    double idf = idf(postings.size());
+                    for (int i = 0, j = 0; i < candidates.length && j < docs.length; ) {
+                        long doc = docs[j] >>> 2;
+                        if (candidates[i] < doc) i++;
+                        else if (candidates[i] > doc) j++;
+                        else {
+                            best[i] = Math.max(best[i], idf * weight((int) docs[j] & 3));
+                            i++;
+                            j++;
+                        }
+                    }
+                }
+                Map<Long, Double> hits = new HashMap<>();
+                for (int i = 0; i < candidates.length; i++) {
+                    if (best[i] > 0) hits.put(candidates[i], scores[i] + best[i]);
+                }
+                return top(hits, limit);
+            }
+
+            Map<Long, Double> hits = new HashMap<>(candidates.length * 2);
+            for (int i = 0; i < candidates.length; i++) hits.put(candidates[i], scores[i]);
+            return top(hits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lower-cased, accent-folded runs of letters and digits. */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> fields(String question, Collection<String> options) {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        for (String token : tokens(question)) fields.merge(token, QUESTION, (a, b) -> a | b);
+        for (String option : options) {
+            for (String token : tokens(option)) fields.merge(token, OPTION, (a, b) -> a | b);
+        }
+        return fields;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (double) Math.max(documents, documentFrequency) / documentFrequency);
+    }
+
+    private static int weight(int flags) {
+        return ((flags & QUESTION) != 0 ? 2 : 0) + ((flags & OPTION) != 0 ? 1 : 0);
+    }
+
+    private static List<Long> top(Map<Long, Double> hits, int limit) {
+        Comparator<Map.Entry<Long, Double>> order = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        // min-heap of the best `limit` hits
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(limit + 1, order);
+        for (var hit : hits.entrySet()) {
+            heap.add(hit);
+            if (heap.size() > limit) heap.poll();
+        }
+        Long[] ids = new Long[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) ids[i] = heap.poll().getKey();
+        return List.of(ids);
+    }
+
+    /** Delta-varint posting list of (pollId << 2 | flags), plus an unsorted tail for out-of-order ids. */
+    static final class Postings {
+
+        private static final int TAIL_LIMIT = 32;
+
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private long lastId = -1;
+        private long[] tail;
+        private int tailSize;
+
+        void add(long id, int flags) {
+            if (tailSize == 0 && id > lastId) {
+                append(id, flags);
+                return;
+            }
+            if (tail == null) tail = new long[TAIL_LIMIT];
+            tail[tailSize++] = id << 2 | flags;
+            if (tailSize == TAIL_LIMIT) rewrite(decode());
+        }
+
+        /** Number of postings (an upper bound while out-of-order ids wait in the tail). */
+        int size() {
+            return count + tailSize;
+        }
+
+        /** Sorted, de-duplicated (pollId << 2 | flags) values. */
+        long[] decode() {
+            long[] out = new long[count + tailSize];
+            long id = 0;
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    value |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += value >>> 2;
+                out[i] = id << 2 | (value & 3);
+            }
+            if (tailSize == 0) return out;
+            System.arraycopy(tail, 0, out, count, tailSize);
+            return fold(out);
+        }
+
+        void merge(Postings other) {
+            long[] mine = decode();
+            long[] theirs = other.decode();
+            long[] all = Arrays.copyOf(mine, mine.length + theirs.length);
+            System.arraycopy(theirs, 0, all, mine.length, theirs.length);
+            rewrite(fold(all));
+        }
+
+        Postings copy() {
+            Postings copy = new Postings();
+            copy.rewrite(decode());
+            return copy;
+        }
+
+        private void rewrite(long[] sorted) {
+            bytes = new byte[Math.max(4, sorted.length * 2)];
+            length = 0;
+            count = 0;
+            lastId = -1;
+            tailSize = 0;
+            tail = null;
+            for (long packed : sorted) append(packed >>> 2, (int) packed & 3);
+            bytes = Arrays.copyOf(bytes, Math.max(4, length));
+        }
+
+        private void append(long id, int flags) {
+            long value = (lastId < 0 ? id : id - lastId) << 2 | flags;
+            if (length + 10 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(16, bytes.length * 2));
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+            lastId = id;
+            count++;
+        }
+
+        /** Sorts by id and folds duplicate ids into one entry with the union of their flags. */
+        private static long[] fold(long[] values) {
+            Arrays.sort(values);
+            int n = 0;
+            for (long v : values) {
+                if (n > 0 && (values[n - 1] >>> 2) == (v >>> 2)) {
+                    values[n - 1] |= v & 3;
+                } else {
+                    values[n++] = v;
+                }
+            }
+            return Arrays.copyOf(values, n);
+        }
+    }
+}
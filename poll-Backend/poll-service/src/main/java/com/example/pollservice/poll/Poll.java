@@ -6,17 +6,29 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "polls")
+@Table(name = "polls", indexes = {
+        @Index(name = "idx_polls_status_expires_at", columnList = "status, expires_at"),
+        // search index catch-up of polls created on other instances
+        @Index(name = "idx_polls_created_at", columnList = "created_at")
+})
 public class Poll {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts; see PollIdSequenceAligner
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "polls_seq")
+    @SequenceGenerator(name = "polls_seq", sequenceName = "polls_seq", allocationSize = PollIdSequenceAligner.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 280)
     private String question;
 
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
 
+    // default lets ddl-auto add the column to existing rows; PollExpiryScheduler fixes them on startup
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16, columnDefinition = "varchar(16) default 'ACTIVE'")
+    private PollStatus status = PollStatus.ACTIVE;
+
     @Column(nullable = false)
     private Instant createdAt;
 
@@ -35,6 +47,8 @@ public class Poll {
     public void setQuestion(String question) { this.question = question; }
     public Instant getExpiresAt() { return expiresAt; }
     public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+    public PollStatus getStatus() { return status; }
+    public void setStatus(PollStatus status) { this.status = status; }
     public Instant getCreatedAt() { return createdAt; }
     public String getCreatedBy() { return createdBy; }
     public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
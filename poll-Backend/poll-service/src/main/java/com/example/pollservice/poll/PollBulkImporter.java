@@ -0,0 +1,171 @@
+package com.example.pollservice.poll;
+
+import com.example.pollservice.api.dto.CreatePollRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of polls from a JSON array or NDJSON body.
+ * <p>
+ * Items are read one at a time ({@link ObjectReader#readValues}), validated, and persisted in
+ * transactions of {@code polls.bulk.batch-size}; with pooled sequence ids and
+ * {@code hibernate.jdbc.batch_size} each batch becomes a handful of JDBC batch statements. After each
+ * commit the persistence context is cleared and one NDJSON result line per item is written and flushed,
+ * so neither the request nor the response is held in memory.
+ */
+@Service
+public class PollBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PollBulkImporter.class);
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemResult(int index, String status, Long id, String error) {
+        static ItemResult created(int index, Long id) { return new ItemResult(index, "created", id, null); }
+        static ItemResult rejected(int index, String error) { return new ItemResult(index, "rejected", null, error); }
+    }
+
+    private final PollService pollService;
+    private final EntityManager em;
+    private final Validator validator;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int batchSize;
+    private final int maxItems;
+
+    public PollBulkImporter(PollService pollService,
+                            EntityManager em,
+                            Validator validator,
+                            ApplicationEventPublisher events,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper mapper,
+                            @Value("${polls.bulk.batch-size:50}") int batchSize,
+                            @Value("${polls.bulk.max-items:10000}") int maxItems) {
+        this.pollService = pollService;
+        this.em = em;
+        this.validator = validator;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.reader = mapper.readerFor(CreatePollRequest.class);
+        this.writer = mapper.writerFor(ItemResult.class);
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Imports every item in {@code in} (a top-level JSON array or whitespace-separated JSON objects) and
+     * writes one result line per item to {@code out}. A malformed document stops the import after the
+     * items read so far; they are still committed.
+     */
+    public void importPolls(InputStream in, String creatorEmail, OutputStream out) throws IOException {
+        List<Poll> batch = new ArrayList<>(batchSize);
+        List<Integer> batchIndexes = new ArrayList<>(batchSize);
+        int index = 0;
+        int created = 0;
+
+        try (MappingIterator<CreatePollRequest> items = reader.readValues(in)) {
+            while (hasNext(items, index, out)) {
+                CreatePollRequest req = items.next();
+                if (index >= maxItems) {
+                    write(out, ItemResult.rejected(index, "Too many items; at most " + maxItems + " per request."));
+                    break;
+                }
+                try {
+                    batch.add(toPoll(req, creatorEmail));
+                    batchIndexes.add(index);
+                } catch (ResponseStatusException e) {
+                    write(out, ItemResult.rejected(index, e.getReason()));
+                }
+                index++;
+                if (batch.size() >= batchSize) {
+                    created += flush(batch, batchIndexes, out);
+                }
+            }
+        } finally {
+            created += flush(batch, batchIndexes, out);
+            out.flush();
+        }
+        log.info("Bulk import by {}: {} items read, {} polls created", creatorEmail, index, created);
+    }
+
+    private boolean hasNext(MappingIterator<CreatePollRequest> items, int index, OutputStream out) throws IOException {
+        try {
+            return items.hasNextValue();
+        } catch (JsonProcessingException e) {
+            write(out, ItemResult.rejected(index, "Malformed JSON: " + e.getOriginalMessage()));
+            return false;
+        }
+    }
+
+    private Poll toPoll(CreatePollRequest req, String creatorEmail) {
+        var violations = validator.validate(req);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+        return pollService.newPoll(req, creatorEmail);
+    }
+
+    private int flush(List<Poll> batch, List<Integer> indexes, OutputStream out) throws IOException {
+        if (batch.isEmpty()) return 0;
+        int n = 0;
+        try {
+            tx.executeWithoutResult(s -> {
+                for (Poll p : batch) {
+                    em.persist(p);
+                }
+                em.flush();
+                for (Poll p : batch) {
+                    events.publishEvent(PollCreatedEvent.of(p));
+                }
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                write(out, ItemResult.created(indexes.get(i), batch.get(i).getId()));
+            }
+            n = batch.size();
+        } catch (RuntimeException e) {
+            log.warn("Bulk import batch of {} polls rolled back: {}", batch.size(), e.toString());
+            for (Integer i : indexes) {
+                write(out, ItemResult.rejected(i, "Batch could not be saved; retry this item."));
+            }
+        } finally {
+            // detach so a long import keeps a constant-size persistence context
+            em.clear();
+            batch.clear();
+            indexes.clear();
+        }
+        out.flush();
+        return n;
+    }
+
+    private void write(OutputStream out, ItemResult result) throws IOException {
+        out.write(writer.writeValueAsBytes(result));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.pollservice.poll;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Published inside the creating transaction; listeners should use {@code @TransactionalEventListener}. */
+public record PollCreatedEvent(Long pollId, Instant expiresAt, String question, List<String> options) {
+
+    static PollCreatedEvent of(Poll poll) {
+        return new PollCreatedEvent(poll.getId(), poll.getExpiresAt(), poll.getQuestion(),
+                poll.getOptions().stream().map(PollOption::getText).toList());
+    }
+}
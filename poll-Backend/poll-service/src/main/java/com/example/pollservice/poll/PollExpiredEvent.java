@@ -0,0 +1,9 @@
+package com.example.pollservice.poll;
+
+import com.example.pollservice.api.dto.PollResponse;
+
+/**
+ * Published once per poll after its status has been committed as {@link PollStatus#EXPIRED}.
+ * {@code finalResults} are the counts at expiry, without per-user fields.
+ */
+public record PollExpiredEvent(Long pollId, PollResponse finalResults) {}
@@ -0,0 +1,150 @@
+package com.example.pollservice.poll;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flips polls to {@link PollStatus#EXPIRED} at their {@code expiresAt} and publishes {@link PollExpiredEvent}.
+ * <p>
+ * Only polls expiring within the next {@code polls.expiry.horizon} are held in the delay queue, so memory is
+ * bounded by the expiry rate rather than the number of open polls. The horizon is refilled periodically
+ * and new polls inside it are scheduled on commit. On startup every overdue poll is expired in one bulk
+ * update before the first refill.
+ */
+@Component
+public class PollExpiryScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PollExpiryScheduler.class);
+
+    private final PollRepository polls;
+    private final PollService pollService;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final Duration horizon;
+
+    private final ScheduledExecutorService executor;
+    private final ConcurrentHashMap<Long, ScheduledFuture<?>> scheduled = new ConcurrentHashMap<>();
+    private final Counter expiredCounter;
+
+    public PollExpiryScheduler(PollRepository polls,
+                               PollService pollService,
+                               ApplicationEventPublisher events,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${polls.expiry.horizon-minutes:10}") long horizonMinutes) {
+        this.polls = polls;
+        this.pollService = pollService;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.horizon = Duration.ofMinutes(horizonMinutes);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("poll-expiry").factory());
+
+        this.expiredCounter = Counter.builder("polls.expired")
+                .description("Polls flipped to EXPIRED by the scheduler or startup recovery")
+                .register(meterRegistry);
+        Gauge.builder("polls.expiry.scheduled", scheduled, ConcurrentHashMap::size)
+                .description("Polls currently waiting in the expiry delay queue")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::recover);
+        long refillMillis = Math.max(1_000, horizon.toMillis() / 2);
+        executor.scheduleWithFixedDelay(this::refill, 0, refillMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPollCreated(PollCreatedEvent event) {
+        if (event.expiresAt().isBefore(Instant.now().plus(horizon))) {
+            schedule(event.pollId(), event.expiresAt());
+        }
+    }
+
+    /** One bulk update for everything that expired while no instance was running. */
+    void recover() {
+        try {
+            Instant now = Instant.now();
+            List<Long> due = tx.execute(s -> {
+                List<Long> ids = polls.findDueIds(now);
+                if (!ids.isEmpty()) polls.expireDue(now);
+                return ids;
+            });
+            if (due == null || due.isEmpty()) return;
+            log.info("Recovered {} polls that expired while the service was down", due.size());
+            expiredCounter.increment(due.size());
+            due.forEach(this::publishExpired);
+        } catch (RuntimeException e) {
+            log.error("Poll expiry recovery failed; overdue polls will be picked up by the next refill", e);
+        }
+    }
+
+    void refill() {
+        try {
+            Instant now = Instant.now();
+            for (var expiry : polls.findExpiries(PollStatus.ACTIVE, now.plus(horizon))) {
+                schedule(expiry.getId(), expiry.getExpiresAt());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Poll expiry refill failed: {}", e.toString());
+        }
+    }
+
+    private void schedule(Long pollId, Instant expiresAt) {
+        scheduled.computeIfAbsent(pollId, id -> {
+            // +1ms: toMillis truncates, and expire() only flips polls whose expiresAt has passed
+            long delay = Math.max(0, Duration.between(Instant.now(), expiresAt).toMillis() + 1);
+            return executor.schedule(() -> expire(id), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void expire(Long pollId) {
+        try {
+            Integer flipped = tx.execute(s -> polls.expire(pollId, Instant.now()));
+            if (flipped != null && flipped > 0) {
+                expiredCounter.increment();
+                publishExpired(pollId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not expire poll {}: {}", pollId, e.toString());
+        } finally {
+            scheduled.remove(pollId);
+        }
+    }
+
+    private void publishExpired(Long pollId) {
+        try {
+            events.publishEvent(new PollExpiredEvent(pollId, pollService.getOne(pollId)));
+        } catch (RuntimeException e) {
+            log.warn("Could not publish final results for poll {}: {}", pollId, e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
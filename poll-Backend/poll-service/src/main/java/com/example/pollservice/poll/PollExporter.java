@@ -0,0 +1,235 @@
+package com.example.pollservice.poll;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Streams poll results and the vote audit log straight from a forward-only JDBC cursor.
+ * <p>
+ * Rows are fetched {@code polls.export.fetch-size} at a time (a streaming result set on MariaDB) and
+ * written as they arrive, so heap use does not depend on how many polls or votes are exported. Queries
+ * run in read-only transactions so they can be served away from the write path.
+ */
+@Service
+public class PollExporter {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+            }
+        }
+    }
+
+    // one row per option; the endpoint is public, so nothing about the creator is exported.
+    // correlated counts use the votes(option_id) index, frozen results win once present
+    private static final String RESULTS_SQL =
+            "select p.id, p.question, p.status, p.created_at, p.expires_at, o.id, o.text, " +
+            "coalesce(r.votes, (select count(*) from votes v where v.option_id = o.id)) " +
+            "from polls p join poll_options o on o.poll_id = p.id " +
+            "left join poll_results r on r.option_id = o.id " +
+            "order by p.id, o.id";
+
+    private static final String LIVE_VOTES_SQL =
+            "select id, option_id, voter, created_at from votes where poll_id = ? order by id";
+    private static final String ARCHIVED_VOTES_SQL =
+            "select id, option_id, voter, created_at from votes_archive where poll_id = ? order by id";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final PollRepository polls;
+    private final ObjectMapper mapper;
+    private final TimeZone jdbcTimeZone;
+
+    public PollExporter(DataSource dataSource,
+                        PlatformTransactionManager transactionManager,
+                        PollRepository polls,
+                        ObjectMapper mapper,
+                        @Value("${polls.export.fetch-size:500}") int fetchSize,
+                        // timestamps are stored in Hibernate's JDBC time zone, not necessarily the JVM's
+                        @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:#{null}}") String jdbcTimeZone) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.polls = polls;
+        this.mapper = mapper;
+        this.jdbcTimeZone = jdbcTimeZone != null ? TimeZone.getTimeZone(jdbcTimeZone) : TimeZone.getDefault();
+    }
+
+    /** Throws 404/403 before any output is written; the creator or an ADMIN may export a poll's votes. */
+    public void checkVoteExportAllowed(Long pollId, String email, boolean admin) {
+        var poll = polls.findById(pollId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (!admin && !poll.getCreatedBy().equalsIgnoreCase(email)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the poll creator can export its votes.");
+        }
+    }
+
+    /** NDJSON: one object per poll with its options; CSV: one row per option. */
+    public void exportResults(Format format, OutputStream out) throws IOException {
+        Calendar cal = Calendar.getInstance(jdbcTimeZone);
+        if (format == Format.CSV) {
+            Writer w = writer(out);
+            w.write("poll_id,question,status,created_at,expires_at,option_id,option_text,votes\n");
+            readOnlyTx.executeWithoutResult(s -> jdbc.query(RESULTS_SQL, rs -> {
+                csvRow(w, rs.getLong(1), rs.getString(2), status(rs.getString(3)),
+                        instant(rs, 4, cal), instant(rs, 5, cal), rs.getLong(6), rs.getString(7), rs.getLong(8));
+            }));
+            w.flush();
+            return;
+        }
+
+        JsonGenerator g = generator(out);
+        long[] currentPoll = {-1};
+        long[] total = {0};
+        readOnlyTx.executeWithoutResult(s -> jdbc.query(RESULTS_SQL, rs -> {
+            try {
+                long pollId = rs.getLong(1);
+                if (pollId != currentPoll[0]) {
+                    if (currentPoll[0] != -1) endPoll(g, total[0]);
+                    currentPoll[0] = pollId;
+                    total[0] = 0;
+                    g.writeStartObject();
+                    g.writeNumberField("id", pollId);
+                    g.writeStringField("question", rs.getString(2));
+                    g.writeStringField("status", status(rs.getString(3)));
+                    g.writeStringField("createdAt", String.valueOf(instant(rs, 4, cal)));
+                    g.writeStringField("expiresAt", String.valueOf(instant(rs, 5, cal)));
+                    g.writeArrayFieldStart("options");
+                }
+                long votes = rs.getLong(8);
+                total[0] += votes;
+                g.writeStartObject();
+                g.writeNumberField("id", rs.getLong(6));
+                g.writeStringField("text", rs.getString(7));
+                g.writeNumberField("votes", votes);
+                g.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        if (currentPoll[0] != -1) endPoll(g, total[0]);
+        g.flush();
+    }
+
+    /** Live votes first, then votes already moved to the archive. */
+    public void exportVotes(Long pollId, Format format, OutputStream out) throws IOException {
+        Calendar cal = Calendar.getInstance(jdbcTimeZone);
+        if (format == Format.CSV) {
+            Writer w = writer(out);
+            w.write("vote_id,poll_id,option_id,voter,created_at\n");
+            readOnlyTx.executeWithoutResult(s -> {
+                for (String sql : new String[]{LIVE_VOTES_SQL, ARCHIVED_VOTES_SQL}) {
+                    jdbc.query(sql, rs -> {
+                        csvRow(w, rs.getLong(1), pollId, rs.getLong(2), rs.getString(3), instant(rs, 4, cal));
+                    }, pollId);
+                }
+            });
+            w.flush();
+            return;
+        }
+
+        JsonGenerator g = generator(out);
+        readOnlyTx.executeWithoutResult(s -> {
+            for (String sql : new String[]{LIVE_VOTES_SQL, ARCHIVED_VOTES_SQL}) {
+                jdbc.query(sql, rs -> {
+                    try {
+                        g.writeStartObject();
+                        g.writeNumberField("id", rs.getLong(1));
+                        g.writeNumberField("pollId", pollId);
+                        g.writeNumberField("optionId", rs.getLong(2));
+                        g.writeStringField("voter", rs.getString(3));
+                        g.writeStringField("createdAt", String.valueOf(instant(rs, 4, cal)));
+                        g.writeEndObject();
+                        g.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, pollId);
+            }
+        });
+        g.flush();
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static void endPoll(JsonGenerator g, long total) {
+        try {
+            g.writeEndArray();
+            g.writeNumberField("totalVotes", total);
+            g.writeEndObject();
+            g.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonGenerator generator(OutputStream out) throws IOException {
+        // each root object is followed by '\n' (NDJSON); the caller owns (and closes) the stream
+        JsonGenerator g = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        g.setRootValueSeparator(null);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return g;
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    private static void csvRow(Writer w, Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) w.write(',');
+                w.write(csv(values[i]));
+            }
+            w.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static Instant instant(ResultSet rs, int column, Calendar cal) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column, cal);
+        return ts == null ? null : ts.toInstant();
+    }
+
+    // same mapping as the API: ARCHIVED is a storage detail
+    private static String status(String stored) {
+        return PollStatus.ACTIVE.name().equals(stored) ? PollStatus.ACTIVE.name() : PollStatus.EXPIRED.name();
+    }
+}
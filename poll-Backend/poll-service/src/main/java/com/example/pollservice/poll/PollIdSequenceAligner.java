@@ -0,0 +1,51 @@
+package com.example.pollservice.poll;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Poll and option ids used to come from IDENTITY columns. When {@code ddl-auto} creates the new
+ * sequences on an existing database they start at 1, so before the web server accepts requests each
+ * sequence is moved past the table's current max id (plus one pooled block). No-op on fresh databases;
+ * startup fails if a sequence cannot be aligned.
+ */
+@Component
+public class PollIdSequenceAligner implements SmartInitializingSingleton {
+
+    /** Ids reserved per sequence round trip; also the sequence increment. */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final Logger log = LoggerFactory.getLogger(PollIdSequenceAligner.class);
+
+    private final JdbcTemplate jdbc;
+
+    public PollIdSequenceAligner(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        align("polls_seq", "polls");
+        align("poll_options_seq", "poll_options");
+    }
+
+    private void align(String sequence, String table) {
+        try {
+            Long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            Long next = jdbc.queryForObject("select next value for " + sequence, Long.class);
+            if (maxId == null || next == null) return;
+            // the pooled optimizer hands out ids up to ALLOCATION_SIZE below the value it reads
+            if (next - ALLOCATION_SIZE < maxId) {
+                long restart = maxId + ALLOCATION_SIZE + 1;
+                jdbc.execute("alter sequence " + sequence + " restart with " + restart);
+                log.info("Aligned {} to {} (max {}.id = {})", sequence, restart, table, maxId);
+            }
+        } catch (RuntimeException e) {
+            // a sequence left behind the old IDENTITY ids would collide on the next insert
+            throw new IllegalStateException("Could not align sequence " + sequence + " with " + table, e);
+        }
+    }
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "poll_options")
 public class PollOption {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts; see PollIdSequenceAligner
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "poll_options_seq")
+    @SequenceGenerator(name = "poll_options_seq", sequenceName = "poll_options_seq", allocationSize = PollIdSequenceAligner.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(optional = false) @JoinColumn(name = "poll_id")
@@ -14,10 +17,18 @@ public class PollOption {
     @Column(nullable = false, length = 140)
     private String text;
 
+    // only written by bulk increments (vote path, VoteTally flush), never by dirty checking;
+    // null for rows that predate the column until VoteTally backfills them
+    @Column(name = "vote_count", updatable = false)
+    private Long voteCount = 0L;
+
     // getters/setters
     public Long getId() { return id; }
     public Poll getPoll() { return poll; }
     public void setPoll(Poll poll) { this.poll = poll; }
     public String getText() { return text; }
     public void setText(String text) { this.text = text; }
+    public Long getVoteCount() { return voteCount; }
+    /** Mirrors an increment already written with {@link PollOptionRepository#incrementVoteCount}. */
+    void countVote() { if (voteCount != null) voteCount++; }
 }
@@ -1,9 +1,17 @@
 package com.example.pollservice.poll;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface PollOptionRepository extends JpaRepository<PollOption, Long> {
     List<PollOption> findByPollId(Long pollId);
+
+    /** Atomic in-database increment; stays null until the row has been backfilled. */
+    @Modifying
+    @Query("update PollOption o set o.voteCount = o.voteCount + :delta where o.id = :id")
+    int incrementVoteCount(@Param("id") Long id, @Param("delta") long delta);
 }
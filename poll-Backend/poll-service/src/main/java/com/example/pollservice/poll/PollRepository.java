@@ -1,8 +1,66 @@
 package com.example.pollservice.poll;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface PollRepository extends JpaRepository<Poll, Long> {
     List<Poll> findByCreatedBy(String createdBy);
+
+    /** Served by idx_polls_created_at. */
+    List<Poll> findByCreatedAtGreaterThanEqual(Instant since);
+
+    /** Served by idx_polls_status_expires_at; soonest-expiring first. */
+    List<Poll> findByStatusOrderByExpiresAtAsc(PollStatus status);
+
+    /** Id and expiry of polls in a status expiring before the horizon (scheduler refill). */
+    @Query("select p.id as id, p.expiresAt as expiresAt from Poll p where p.status = :status and p.expiresAt < :before")
+    List<PollExpiry> findExpiries(@Param("status") PollStatus status, @Param("before") Instant before);
+
+    @Query("select p.id from Poll p where p.status = com.example.pollservice.poll.PollStatus.ACTIVE and p.expiresAt <= :now")
+    List<Long> findDueIds(@Param("now") Instant now);
+
+    /** Bulk flip of every overdue poll (startup recovery). */
+    @Modifying
+    @Query("update Poll p set p.status = com.example.pollservice.poll.PollStatus.EXPIRED " +
+            "where p.status = com.example.pollservice.poll.PollStatus.ACTIVE and p.expiresAt <= :now")
+    int expireDue(@Param("now") Instant now);
+
+    /** @return 1 if this call flipped the poll, 0 if it was already expired (or not due) */
+    @Modifying
+    @Query("update Poll p set p.status = com.example.pollservice.poll.PollStatus.EXPIRED " +
+            "where p.id = :id and p.status = com.example.pollservice.poll.PollStatus.ACTIVE and p.expiresAt <= :now")
+    int expire(@Param("id") Long id, @Param("now") Instant now);
+
+    /** Expired polls past the archive grace period, oldest first. */
+    @Query("select p.id from Poll p where p.status = com.example.pollservice.poll.PollStatus.EXPIRED " +
+            "and p.expiresAt < :before order by p.expiresAt")
+    List<Long> findArchivable(@Param("before") Instant before, Limit limit);
+
+    @Modifying
+    @Query("update Poll p set p.status = com.example.pollservice.poll.PollStatus.ARCHIVED " +
+            "where p.id = :id and p.status = com.example.pollservice.poll.PollStatus.EXPIRED")
+    int markArchived(@Param("id") Long id);
+
+    /** Question and expiry of the ACTIVE polls among ids, without loading options. */
+    @Query("select p.id as id, p.question as question, p.expiresAt as expiresAt from Poll p " +
+            "where p.id in :ids and p.status = com.example.pollservice.poll.PollStatus.ACTIVE")
+    List<PollHeadline> findActiveHeadlines(@Param("ids") Collection<Long> ids);
+
+    interface PollExpiry {
+        Long getId();
+        Instant getExpiresAt();
+    }
+
+    interface PollHeadline {
+        Long getId();
+        String getQuestion();
+        Instant getExpiresAt();
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.pollservice.poll;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Frozen vote count of one option, written by {@link VoteArchiver} before the poll's raw votes are
+ * moved to {@code votes_archive}. Once present, these rows are the poll's results.
+ */
+@Entity
+@Table(name = "poll_results", indexes = @Index(name = "idx_poll_results_poll", columnList = "poll_id"))
+public class PollResult {
+    @Id
+    @Column(name = "option_id")
+    private Long optionId;
+
+    @Column(name = "poll_id", nullable = false)
+    private Long pollId;
+
+    @Column(nullable = false)
+    private long votes;
+
+    @Column(name = "frozen_at", nullable = false)
+    private Instant frozenAt;
+
+    // getters
+    public Long getOptionId() { return optionId; }
+    public Long getPollId() { return pollId; }
+    public long getVotes() { return votes; }
+    public Instant getFrozenAt() { return frozenAt; }
+}
@@ -0,0 +1,11 @@
+package com.example.pollservice.poll;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PollResultRepository extends JpaRepository<PollResult, Long> {
+    List<PollResult> findByPollId(Long pollId);
+
+    boolean existsByPollId(Long pollId);
+}
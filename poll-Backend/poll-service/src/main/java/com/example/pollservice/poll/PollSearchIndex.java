@@ -0,0 +1,192 @@
+package com.example.pollservice.poll;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link InvertedIndex} behind {@code GET /api/polls/search} in step with the database.
+ * <p>
+ * On startup the index is rebuilt in parallel: the poll id range is split into {@code polls.search.rebuild-threads}
+ * slices, each streamed from its own cursor into a private index, and the slices are folded together in
+ * order. Polls created here are added on commit; polls created on other instances are picked up every
+ * {@code polls.search.refresh-seconds} from the {@code created_at} index.
+ */
+@Component
+public class PollSearchIndex implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PollSearchIndex.class);
+
+    // one row per option, grouped by poll
+    private static final String RANGE_SQL =
+            "select p.id, p.question, o.text from polls p join poll_options o on o.poll_id = p.id " +
+            "where p.id between ? and ? order by p.id";
+
+    // polls committed late (created_at is taken before commit) are still inside the overlap
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(2);
+    private static final Duration RECENT_RETENTION = Duration.ofMinutes(10);
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final PollRepository polls;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final int threads;
+    private final int maxLimit;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService executor;
+
+    // ids indexed within RECENT_RETENTION, so catch-up does not add them again
+    private final ConcurrentHashMap<Long, Long> recent = new ConcurrentHashMap<>();
+    private volatile Instant watermark;
+
+    public PollSearchIndex(PollRepository polls,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${polls.search.rebuild-threads:4}") int threads,
+                           @Value("${polls.search.fetch-size:1000}") int fetchSize,
+                           @Value("${polls.search.max-limit:50}") int maxLimit,
+                           @Value("${polls.search.refresh-seconds:30}") long refreshSeconds) {
+        this.polls = polls;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.threads = Math.max(1, threads);
+        this.maxLimit = Math.max(1, maxLimit);
+        this.refreshSeconds = Math.max(1, refreshSeconds);
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("poll-search").factory());
+
+        Gauge.builder("polls.search.documents", index, InvertedIndex::documents)
+                .description("Polls in the search index")
+                .register(meterRegistry);
+        Gauge.builder("polls.search.terms", index, InvertedIndex::terms)
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::rebuild);
+        executor.scheduleWithFixedDelay(this::catchUp, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPollCreated(PollCreatedEvent event) {
+        recent.put(event.pollId(), System.currentTimeMillis());
+        index.add(event.pollId(), event.question(), event.options());
+    }
+
+    /** Ranked poll ids for the query, at most {@code polls.search.max-limit}. */
+    public List<Long> search(String query, int limit) {
+        if (query == null || query.isBlank()) return List.of();
+        // a trailing separator is meaningful: it makes the last token exact instead of a prefix
+        return index.search(query, Math.max(1, Math.min(limit, maxLimit)));
+    }
+
+    void rebuild() {
+        Instant started = Instant.now();
+        long begin = System.nanoTime();
+        try {
+            long[] range = jdbc.queryForObject("select min(id), max(id) from polls",
+                    (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            if (range == null || range[1] == 0) {
+                watermark = started;
+                return;
+            }
+            long span = (range[1] - range[0]) / threads + 1;
+            ExecutorService workers = Executors.newFixedThreadPool(threads,
+                    Thread.ofPlatform().daemon().name("poll-search-rebuild-", 0).factory());
+            try {
+                List<Future<InvertedIndex>> slices = new ArrayList<>(threads);
+                for (int i = 0; i < threads; i++) {
+                    long from = range[0] + i * span;
+                    long to = Math.min(range[1], from + span - 1);
+                    slices.add(workers.submit(() -> readOnlyTx.execute(s -> slice(from, to))));
+                }
+                for (Future<InvertedIndex> slice : slices) {
+                    index.addAll(slice.get());
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+            watermark = started;
+            log.info("Search index rebuilt: {} polls, {} terms in {} ms", index.documents(), index.terms(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // live creates are still indexed; catch-up covers the last few minutes only
+            log.error("Search index rebuild failed; search covers polls created since startup", e);
+            watermark = started;
+        }
+    }
+
+    private InvertedIndex slice(long from, long to) {
+        InvertedIndex slice = new InvertedIndex();
+        long[] current = {-1};
+        String[] question = {null};
+        List<String> options = new ArrayList<>();
+        jdbc.query(RANGE_SQL, rs -> {
+            long id = rs.getLong(1);
+            if (id != current[0]) {
+                if (current[0] != -1) slice.add(current[0], question[0], options);
+                current[0] = id;
+                question[0] = rs.getString(2);
+                options.clear();
+            }
+            options.add(rs.getString(3));
+        }, from, to);
+        if (current[0] != -1) slice.add(current[0], question[0], options);
+        return slice;
+    }
+
+    void catchUp() {
+        Instant since = watermark;
+        if (since == null) return;
+        Instant now = Instant.now();
+        try {
+            List<Poll> created = readOnlyTx.execute(s -> polls.findByCreatedAtGreaterThanEqual(since.minus(CATCH_UP_OVERLAP)));
+            int added = 0;
+            for (Poll p : created == null ? List.<Poll>of() : created) {
+                if (recent.putIfAbsent(p.getId(), System.currentTimeMillis()) != null) continue;
+                index.add(p.getId(), p.getQuestion(), p.getOptions().stream().map(PollOption::getText).toList());
+                added++;
+            }
+            if (added > 0) log.debug("Search index caught up with {} polls created elsewhere", added);
+            watermark = now;
+        } catch (RuntimeException e) {
+            log.warn("Search index catch-up failed: {}", e.toString());
+        }
+        long cutoff = System.currentTimeMillis() - RECENT_RETENTION.toMillis();
+        recent.values().removeIf(indexedAt -> indexedAt < cutoff);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
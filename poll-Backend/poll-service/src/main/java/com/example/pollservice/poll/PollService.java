@@ -2,15 +2,19 @@ package com.example.pollservice.poll;
 
 import com.example.pollservice.api.dto.CreatePollRequest;
 import com.example.pollservice.api.dto.PollResponse;
-import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -19,36 +23,73 @@ public class PollService {
     private final PollRepository polls;
     private final PollOptionRepository options;
     private final VoteRepository votes;
-
-    public PollService(PollRepository polls, PollOptionRepository options, VoteRepository votes) {
+    private final PollResultRepository results;
+    private final ArchivedVoteRepository archivedVotes;
+    private final VoteTally tally;
+    private final ApplicationEventPublisher events;
+
+    public PollService(PollRepository polls, PollOptionRepository options, VoteRepository votes,
+                       PollResultRepository results, ArchivedVoteRepository archivedVotes,
+                       VoteTally tally, ApplicationEventPublisher events) {
         this.polls = polls;
         this.options = options;
         this.votes = votes;
+        this.results = results;
+        this.archivedVotes = archivedVotes;
+        this.tally = tally;
+        this.events = events;
     }
 
     /* -------------------- READ -------------------- */
+    // read-only transactions may be served by a replica (ReplicaRoutingConfiguration)
 
+    @Transactional(readOnly = true)
     public List<PollResponse> listAll() {
         return polls.findAll().stream().map(p -> toDtoWithCounts(p, Optional.empty())).toList();
     }
 
+    @Transactional(readOnly = true)
     public PollResponse getOne(Long id) {
         var p = polls.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         return toDtoWithCounts(p, Optional.empty());
     }
 
+    @Transactional(readOnly = true)
     public List<PollResponse> listAllForUser(String emailOrNull) {
         return polls.findAll().stream()
                 .map(p -> toDtoWithCounts(p, Optional.ofNullable(emailOrNull)))
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public PollResponse getOneForUser(Long id, String emailOrNull) {
         var p = polls.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         return toDtoWithCounts(p, Optional.ofNullable(emailOrNull));
     }
 
+    /** Active polls, soonest-expiring first (indexed by status, expires_at) */
+    @Transactional(readOnly = true)
+    public List<PollResponse> listActive(String emailOrNull) {
+        return polls.findByStatusOrderByExpiresAtAsc(PollStatus.ACTIVE).stream()
+                .map(p -> toDtoWithCounts(p, Optional.ofNullable(emailOrNull)))
+                .toList();
+    }
+
+    /** The given polls in the given order (search results); unknown ids are skipped. */
+    @Transactional(readOnly = true)
+    public List<PollResponse> listByIdsForUser(List<Long> ids, String emailOrNull) {
+        if (ids.isEmpty()) return List.of();
+        var byId = new HashMap<Long, Poll>(ids.size() * 2);
+        polls.findAllById(ids).forEach(p -> byId.put(p.getId(), p));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(p -> toDtoWithCounts(p, Optional.ofNullable(emailOrNull)))
+                .toList();
+    }
+
     /** Polls created by the authenticated user */
+    @Transactional(readOnly = true)
     public List<PollResponse> listMine(String creatorEmail) {
         var list = polls.findByCreatedBy(creatorEmail);
         return list.stream()
@@ -60,6 +101,17 @@ public class PollService {
 
     @Transactional
     public PollResponse create(CreatePollRequest req, String creatorEmail) {
+        var saved = polls.save(newPoll(req, creatorEmail));
+        events.publishEvent(PollCreatedEvent.of(saved));
+        return toDtoWithCounts(saved, Optional.of(creatorEmail));
+    }
+
+    /**
+     * Sanitizes and validates a request into an unsaved {@link Poll}; shared with {@link PollBulkImporter}.
+     *
+     * @throws ResponseStatusException 400 if the request is invalid
+     */
+    Poll newPoll(CreatePollRequest req, String creatorEmail) {
         // ----- sanitize & validate -----
         var question = (req.question() == null ? "" : req.question().trim());
         if (question.isEmpty()) {
@@ -68,12 +120,12 @@ public class PollService {
 
         var rawOptions = req.options() == null ? List.<String>of() : req.options();
         // trim, drop blanks, de-dupe while keeping order
-        var seen = new HashSet<String>();
-        var cleanOptions = rawOptions.stream()
-                .map(s -> s == null ? "" : s.trim())
-                .filter(s -> !s.isEmpty())
-                .filter(seen::add)
-                .toList();
+        var cleanOptions = new LinkedHashSet<String>(rawOptions.size() * 2);
+        for (String raw : rawOptions) {
+            if (raw == null) continue;
+            String text = raw.trim();
+            if (!text.isEmpty()) cleanOptions.add(text);
+        }
 
         if (cleanOptions.size() < 2) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide at least two unique, non-empty options.");
@@ -99,16 +151,15 @@ public class PollService {
             opt.setText(text);
             p.getOptions().add(opt);
         });
-
-        var saved = polls.save(p);
-        return toDtoWithCounts(saved, Optional.of(creatorEmail));
+        return p;
     }
 
     @Transactional
     public PollResponse vote(Long pollId, Long optionId, String voterEmail) {
         var poll = polls.findById(pollId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        if (poll.getExpiresAt().isBefore(Instant.now())) {
+        // status may lag expiresAt by the scheduler's latency; the timestamp is authoritative for writes
+        if (poll.getStatus() != PollStatus.ACTIVE || poll.getExpiresAt().isBefore(Instant.now())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Poll expired");
         }
         if (votes.existsByPollIdAndVoter(pollId, voterEmail)) {
@@ -126,23 +177,51 @@ public class PollService {
         v.setOption(opt);
         v.setVoter(voterEmail);
         votes.save(v);
+        // hot polls buffer the counter increment (VoteTally); otherwise it is one row update here
+        if (!tally.deferIncrement(pollId, optionId)) {
+            options.incrementVoteCount(optionId, 1);
+            opt.countVote();
+        }
+        events.publishEvent(new VoteCastEvent(pollId, optionId, voterEmail));
 
         return toDtoWithCounts(poll, Optional.of(voterEmail));
     }
 
     /* -------------------- helpers -------------------- */
 
-    private PollResponse toDtoWithCounts(Poll p, Optional<String> email) {
-        var optionDtos = p.getOptions().stream()
-                .map(o -> new PollResponse.OptionDto(
-                        o.getId(),
-                        o.getText(),
-                        votes.countByOptionId(o.getId())
-                ))
-                .toList();
+    private Map<Long, Long> frozenCounts(Long pollId) {
+        var rows = results.findByPollId(pollId);
+        if (rows.isEmpty()) return Map.of();
+        var counts = new HashMap<Long, Long>(rows.size() * 2);
+        rows.forEach(r -> counts.put(r.getOptionId(), r.getVotes()));
+        return counts;
+    }
+
+    /** Persisted counter plus this instance's unflushed hot-poll delta; rows not yet backfilled are counted. */
+    private long liveCount(Poll p, PollOption o) {
+        Long base = o.getVoteCount();
+        return base != null ? base + tally.pending(p.getId(), o.getId()) : votes.countByOptionId(o.getId());
+    }
 
-        long total = votes.countByPollId(p.getId());
-        String status = p.getExpiresAt().isAfter(Instant.now()) ? "ACTIVE" : "EXPIRED";
+    private PollResponse toDtoWithCounts(Poll p, Optional<String> email) {
+        // expired polls may have frozen results (VoteArchiver); from then on votes are being moved out
+        Map<Long, Long> frozen = p.getStatus() == PollStatus.ACTIVE ? Map.of() : frozenCounts(p.getId());
+
+        List<PollResponse.OptionDto> optionDtos;
+        long total;
+        if (!frozen.isEmpty()) {
+            optionDtos = p.getOptions().stream()
+                    .map(o -> new PollResponse.OptionDto(o.getId(), o.getText(), frozen.getOrDefault(o.getId(), 0L)))
+                    .toList();
+            total = optionDtos.stream().mapToLong(PollResponse.OptionDto::votes).sum();
+        } else {
+            optionDtos = p.getOptions().stream()
+                    .map(o -> new PollResponse.OptionDto(o.getId(), o.getText(), liveCount(p, o)))
+                    .toList();
+            total = optionDtos.stream().mapToLong(PollResponse.OptionDto::votes).sum();
+        }
+        // ARCHIVED is an internal storage state; clients only distinguish ACTIVE and EXPIRED
+        String status = p.getStatus() == PollStatus.ACTIVE ? PollStatus.ACTIVE.name() : PollStatus.EXPIRED.name();
 
         boolean hasVoted = false;
         Long userOptionId = null;
@@ -152,6 +231,12 @@ public class PollService {
             if (myVote.isPresent()) {
                 hasVoted = true;
                 userOptionId = myVote.get().getOption().getId();
+            } else if (!frozen.isEmpty()) {
+                var archived = archivedVotes.findFirstByPollIdAndVoter(p.getId(), email.get());
+                if (archived.isPresent()) {
+                    hasVoted = true;
+                    userOptionId = archived.get().getOptionId();
+                }
             }
         }
 
@@ -0,0 +1,13 @@
+package com.example.pollservice.poll;
+
+/**
+ * Persisted lifecycle state of a poll. Flipped to {@link #EXPIRED} by {@link PollExpiryScheduler}
+ * at {@code expiresAt}, so reads never compare timestamps, and to {@link #ARCHIVED} by
+ * {@link VoteArchiver} once results are frozen and raw votes moved to {@code votes_archive}.
+ * API responses report ARCHIVED polls as EXPIRED.
+ */
+public enum PollStatus {
+    ACTIVE,
+    EXPIRED,
+    ARCHIVED
+}
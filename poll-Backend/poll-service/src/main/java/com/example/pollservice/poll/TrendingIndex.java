@@ -0,0 +1,233 @@
+package com.example.pollservice.poll;
+
+import com.example.pollservice.api.dto.TrendingPollResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory ranking of ACTIVE polls by exponentially decayed vote count, behind {@code GET /api/polls/trending}.
+ * <p>
+ * Scores are kept in log space relative to a fixed epoch: a vote at time t adds {@code e^((t - epoch)/tau)},
+ * so older scores never need to be rewritten as time passes and only the voted poll moves in the
+ * {@link TreeSet} (O(log n) per vote). The decayed score is recovered on read. At most
+ * {@code polls.trending.capacity} polls are tracked; the lowest is evicted, and a poll that comes back
+ * starts from its new votes only.
+ * <p>
+ * Reads never touch the database. On startup the index is rebuilt from votes cast in the last
+ * {@code polls.trending.rebuild-hours}; a question/expiry lookup happens only when a poll enters the index.
+ * Live votes are counted from construction on, so the rebuild skips every vote the listener already saw
+ * (a voter votes once per poll), whatever its timestamp or commit order.
+ */
+@Component
+public class TrendingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingIndex.class);
+
+    // votes created this long before construction may still have been committed (and counted) live
+    private static final Duration IN_FLIGHT_MARGIN = Duration.ofMinutes(1);
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::logScore).thenComparing(Entry::pollId);
+
+    private final PollRepository polls;
+    private final VoteRepository votes;
+    private final TransactionTemplate readOnlyTx;
+    private final int capacity;
+    private final int maxLimit;
+    private final Duration rebuildWindow;
+    private final double tauMillis;
+    private final long epochMillis = System.currentTimeMillis();
+    private final Instant liveSince = Instant.ofEpochMilli(epochMillis);
+
+    // guarded by this
+    private final Map<Long, Entry> byPoll = new HashMap<>();
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+    // votes counted by onVoteCast until the rebuild has merged its scan; null afterwards
+    private Set<VoteKey> countedLive = new HashSet<>();
+
+    public TrendingIndex(PollRepository polls,
+                         VoteRepository votes,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${polls.trending.half-life-minutes:60}") double halfLifeMinutes,
+                         @Value("${polls.trending.capacity:1000}") int capacity,
+                         @Value("${polls.trending.max-limit:100}") int maxLimit,
+                         @Value("${polls.trending.rebuild-hours:24}") long rebuildHours) {
+        this.polls = polls;
+        this.votes = votes;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.capacity = Math.max(1, capacity);
+        this.maxLimit = Math.max(1, maxLimit);
+        this.rebuildWindow = Duration.ofHours(rebuildHours);
+        this.tauMillis = halfLifeMinutes * 60_000 / Math.log(2);
+
+        Gauge.builder("polls.trending.size", this, TrendingIndex::size)
+                .description("Polls tracked by the trending index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofPlatform().daemon().name("trending-rebuild").start(this::rebuild);
+    }
+
+    /** Counts only committed votes. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoteCast(VoteCastEvent event) {
+        double weight = logWeight(System.currentTimeMillis());
+        synchronized (this) {
+            if (countedLive != null) countedLive.add(new VoteKey(event.pollId(), event.voter()));
+            Entry current = byPoll.get(event.pollId());
+            if (current != null) {
+                replace(current, current.withLogScore(logAddExp(current.logScore(), weight)));
+                return;
+            }
+            // would be evicted straight away; skip the headline lookup
+            if (byPoll.size() >= capacity && weight <= ranked.first().logScore()) return;
+        }
+        // first vote since the poll (re-)entered the index: one indexed lookup, outside the lock
+        var headlines = polls.findActiveHeadlines(List.of(event.pollId()));
+        if (headlines.isEmpty()) return;
+        var h = headlines.get(0);
+        merge(new Entry(h.getId(), h.getQuestion(), h.getExpiresAt(), weight));
+    }
+
+    @EventListener
+    public synchronized void onPollExpired(PollExpiredEvent event) {
+        Entry entry = byPoll.remove(event.pollId());
+        if (entry != null) ranked.remove(entry);
+    }
+
+    /** Highest decayed scores first; polls past their expiry are skipped even before the scheduler flips them. */
+    public List<TrendingPollResponse> top(int limit) {
+        int n = Math.max(1, Math.min(limit, maxLimit));
+        long now = System.currentTimeMillis();
+        Instant nowInstant = Instant.ofEpochMilli(now);
+        double nowLog = logWeight(now);
+        List<TrendingPollResponse> result = new ArrayList<>(n);
+        synchronized (this) {
+            Iterator<Entry> it = ranked.descendingIterator();
+            while (it.hasNext() && result.size() < n) {
+                Entry e = it.next();
+                if (e.expiresAt().isBefore(nowInstant)) continue;
+                result.add(new TrendingPollResponse(e.pollId(), e.question(), e.expiresAt(),
+                        Math.exp(e.logScore() - nowLog)));
+            }
+        }
+        return result;
+    }
+
+    synchronized int size() {
+        return byPoll.size();
+    }
+
+    void rebuild() {
+        try {
+            Instant until = Instant.now();
+            Instant overlap = liveSince.minus(IN_FLIGHT_MARGIN);
+            Map<Long, Double> scores = new HashMap<>();
+            // votes that may also have reached onVoteCast; decided once the scan is complete
+            Map<VoteKey, Double> recent = new HashMap<>();
+            readOnlyTx.executeWithoutResult(s -> {
+                try (var stream = votes.streamCastBetween(until.minus(rebuildWindow), until)) {
+                    stream.forEach(v -> {
+                        double weight = logWeight(v.getCreatedAt().toEpochMilli());
+                        if (v.getCreatedAt().isBefore(overlap)) {
+                            scores.merge(v.getPollId(), weight, TrendingIndex::logAddExp);
+                        } else {
+                            recent.put(new VoteKey(v.getPollId(), v.getVoter()), weight);
+                        }
+                    });
+                }
+            });
+            synchronized (this) {
+                recent.forEach((key, weight) -> {
+                    if (!countedLive.contains(key)) scores.merge(key.pollId(), weight, TrendingIndex::logAddExp);
+                });
+                countedLive = null;
+            }
+
+            // only the best `capacity` can survive; look up their headlines in chunks
+            List<Map.Entry<Long, Double>> best = scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                    .limit(capacity)
+                    .toList();
+            int loaded = 0;
+            for (int i = 0; i < best.size(); i += 500) {
+                var chunk = best.subList(i, Math.min(best.size(), i + 500));
+                var headlines = polls.findActiveHeadlines(chunk.stream().map(Map.Entry::getKey).toList());
+                for (var h : headlines) {
+                    // added to what onVoteCast counted; the two sets of votes are disjoint
+                    merge(new Entry(h.getId(), h.getQuestion(), h.getExpiresAt(), scores.get(h.getId())));
+                    loaded++;
+                }
+            }
+            log.info("Trending index rebuilt from {} polls with recent votes ({} active)", scores.size(), loaded);
+        } catch (RuntimeException e) {
+            // the index still fills from live votes
+            log.warn("Trending index rebuild failed: {}", e.toString());
+            synchronized (this) {
+                countedLive = null;
+            }
+        }
+    }
+
+    private synchronized void merge(Entry entry) {
+        Entry current = byPoll.get(entry.pollId());
+        if (current != null) {
+            replace(current, current.withLogScore(logAddExp(current.logScore(), entry.logScore())));
+            return;
+        }
+        byPoll.put(entry.pollId(), entry);
+        ranked.add(entry);
+        if (ranked.size() > capacity) {
+            byPoll.remove(ranked.pollFirst().pollId());
+        }
+    }
+
+    private void replace(Entry current, Entry updated) {
+        ranked.remove(current);
+        ranked.add(updated);
+        byPoll.put(updated.pollId(), updated);
+    }
+
+    private double logWeight(long epochMilli) {
+        return (epochMilli - epochMillis) / tauMillis;
+    }
+
+    /** log(e^a + e^b) without overflow. */
+    private static double logAddExp(double a, double b) {
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+    }
+
+    private record VoteKey(Long pollId, String voter) {}
+
+    private record Entry(Long pollId, String question, Instant expiresAt, double logScore) {
+        Entry withLogScore(double logScore) {
+            return new Entry(pollId, question, expiresAt, logScore);
+        }
+    }
+}
@@ -9,7 +9,9 @@ import java.time.Instant;
         uniqueConstraints = @UniqueConstraint(
                 name = "uk_vote_poll_voter",
                 columnNames = {"poll_id", "voter"}
-        )
+        ),
+        // recent-vote scan when the trending index is rebuilt
+        indexes = @Index(name = "idx_votes_created_at", columnList = "created_at")
 )
 public class Vote {
     @Id
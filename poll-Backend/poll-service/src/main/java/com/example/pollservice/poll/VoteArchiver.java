@@ -0,0 +1,162 @@
+package com.example.pollservice.poll;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts expired polls: once a poll has been EXPIRED for {@code polls.archive.grace-minutes}, its
+ * per-option counts are frozen into {@code poll_results}, its raw votes are moved to {@code votes_archive}
+ * in chunks of {@code polls.archive.chunk-size} (one short transaction each, with a pause in between so
+ * the primary is never hammered), and the poll is marked ARCHIVED.
+ * <p>
+ * Every step is idempotent, so a run interrupted by a restart resumes where it stopped: results are only
+ * frozen while no results row exists, and moved ranges are no longer in {@code votes}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "polls.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class VoteArchiver implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteArchiver.class);
+
+    private static final String FREEZE_RESULTS =
+            "insert into poll_results (option_id, poll_id, votes, frozen_at) " +
+            "select o.id, o.poll_id, count(v.id), current_timestamp " +
+            "from poll_options o left join votes v on v.option_id = o.id " +
+            "where o.poll_id = ? group by o.id, o.poll_id";
+
+    // id of the last row of the next chunk; empty when fewer than chunk-size rows are left
+    private static final String CHUNK_BOUNDARY =
+            "select id from votes where poll_id = ? order by id limit 1 offset ?";
+
+    private static final String COPY_CHUNK =
+            "insert into votes_archive (id, poll_id, option_id, voter, created_at) " +
+            "select id, poll_id, option_id, voter, created_at from votes where poll_id = ? and id <= ?";
+
+    private static final String DELETE_CHUNK = "delete from votes where poll_id = ? and id <= ?";
+
+    private final PollRepository polls;
+    private final PollResultRepository results;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Duration grace;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final long intervalMinutes;
+    private final int pollsPerRun;
+
+    private final ScheduledExecutorService executor;
+    private final Counter archivedPolls;
+    private final Counter archivedVotes;
+
+    public VoteArchiver(PollRepository polls,
+                        PollResultRepository results,
+                        JdbcTemplate jdbc,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${polls.archive.grace-minutes:60}") long graceMinutes,
+                        @Value("${polls.archive.chunk-size:1000}") int chunkSize,
+                        @Value("${polls.archive.pause-ms:50}") long pauseMillis,
+                        @Value("${polls.archive.interval-minutes:5}") long intervalMinutes,
+                        @Value("${polls.archive.polls-per-run:20}") int pollsPerRun) {
+        this.polls = polls;
+        this.results = results;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.grace = Duration.ofMinutes(graceMinutes);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.intervalMinutes = intervalMinutes;
+        this.pollsPerRun = pollsPerRun;
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("vote-archiver").factory());
+
+        this.archivedPolls = Counter.builder("polls.archived")
+                .description("Polls whose votes were moved to votes_archive")
+                .register(meterRegistry);
+        this.archivedVotes = Counter.builder("votes.archived")
+                .description("Vote rows moved from votes to votes_archive")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::run, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    void run() {
+        List<Long> due;
+        try {
+            due = polls.findArchivable(Instant.now().minus(grace), Limit.of(pollsPerRun));
+        } catch (RuntimeException e) {
+            log.warn("Vote archival scan failed: {}", e.toString());
+            return;
+        }
+        for (Long pollId : due) {
+            if (Thread.currentThread().isInterrupted()) return;
+            try {
+                archive(pollId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Archiving poll {} failed, will retry next run: {}", pollId, e.toString());
+            }
+        }
+    }
+
+    void archive(Long pollId) throws InterruptedException {
+        // 1. freeze counts while every vote is still in the live table
+        tx.executeWithoutResult(s -> {
+            if (!results.existsByPollId(pollId)) {
+                jdbc.update(FREEZE_RESULTS, pollId);
+            }
+        });
+
+        // 2. move raw votes in bounded chunks, one transaction each
+        long moved = 0;
+        while (true) {
+            Integer count = tx.execute(s -> moveChunk(pollId));
+            if (count == null || count == 0) break;
+            moved += count;
+            archivedVotes.increment(count);
+            if (count < chunkSize) break;
+            if (pauseMillis > 0) Thread.sleep(pauseMillis);
+        }
+
+        // 3. reads switch to the frozen results and the archive for hasVoted
+        tx.executeWithoutResult(s -> polls.markArchived(pollId));
+        archivedPolls.increment();
+        log.info("Archived poll {} ({} votes moved)", pollId, moved);
+    }
+
+    private int moveChunk(Long pollId) {
+        List<Long> boundary = jdbc.queryForList(CHUNK_BOUNDARY, Long.class, pollId, chunkSize - 1);
+        Long upTo = boundary.isEmpty() ? Long.MAX_VALUE : boundary.get(0);
+        jdbc.update(COPY_CHUNK, pollId, upTo);
+        return jdbc.update(DELETE_CHUNK, pollId, upTo);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.pollservice.poll;
+
+/** Published inside the voting transaction, before commit. */
+public record VoteCastEvent(Long pollId, Long optionId, String voter) {}
@@ -1,8 +1,15 @@
 package com.example.pollservice.poll;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VoteRepository extends JpaRepository<Vote, Long> {
 
@@ -26,4 +33,19 @@ public interface VoteRepository extends JpaRepository<Vote, Long> {
      * Used to determine which option the user selected.
      */
     Optional<Vote> findByPollIdAndVoter(Long pollId, String voter);
+
+    /**
+     * Poll, voter and cast time of every vote in [since, until), served by idx_votes_created_at and streamed
+     * in fetch-size chunks; used to rebuild the trending index. Must be consumed inside a transaction.
+     */
+    @Query("select v.poll.id as pollId, v.voter as voter, v.createdAt as createdAt from Vote v " +
+            "where v.createdAt >= :since and v.createdAt < :until")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<VoteTime> streamCastBetween(@Param("since") Instant since, @Param("until") Instant until);
+
+    interface VoteTime {
+        Long getPollId();
+        String getVoter();
+        Instant getCreatedAt();
+    }
 }
@@ -0,0 +1,339 @@
+package com.example.pollservice.poll;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-option vote counters ({@code poll_options.vote_count}) with a hot-poll mode.
+ * <p>
+ * Normally a vote increments its option row inside the voting transaction. Once a poll takes more than
+ * {@code polls.hot.enter-votes-per-second} on this instance it turns hot: increments go to striped
+ * {@link LongAdder}s after commit and are written back every {@code polls.hot.flush-interval-ms} as one
+ * batch of {@code vote_count = vote_count + ?} updates, so each option row is locked once per interval
+ * instead of once per vote. Reads add the unflushed delta to the persisted count. A poll leaves hot mode
+ * after {@code polls.hot.cool-down-ticks} intervals below {@code polls.hot.exit-votes-per-second}; its
+ * counters are kept until everything committed under hot mode has been flushed.
+ * <p>
+ * Deltas are per instance: other instances see them after the next flush, and a crash loses at most one
+ * interval of counter increments. The vote rows themselves are always committed, so counters are
+ * reconciled from them: a poll's options are recounted when it leaves hot mode (after its counters are
+ * dropped), and on startup every ACTIVE poll whose counters disagree with its votes is recounted. A recount
+ * while another instance still buffers increments for the poll overcounts by that instance's pending
+ * delta until it cools down and recounts in turn, so the last instance to leave hot mode leaves exact
+ * counts. Archived results are recounted from the votes as well.
+ */
+@Component
+public class VoteTally implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteTally.class);
+
+    // rows that predate vote_count; archived polls take their frozen results, the rest count live votes
+    private static final String BACKFILL =
+            "update poll_options set vote_count = coalesce(" +
+            "(select r.votes from poll_results r where r.option_id = poll_options.id), " +
+            "(select count(*) from votes v where v.option_id = poll_options.id)) " +
+            "where vote_count is null";
+
+    private static final String INCREMENT = "update poll_options set vote_count = vote_count + ? where id = ?";
+
+    // recount of one poll: option rows are locked first, so in-place increments of votes that are
+    // already counted wait, and the count's snapshot is taken after them
+    private static final String LOCK_OPTIONS = "select id, vote_count from poll_options where poll_id = ? for update";
+    private static final String COUNT_VOTES = "select option_id, count(*) from votes where poll_id = ? group by option_id";
+    private static final String SET_COUNT = "update poll_options set vote_count = ? where id = ?";
+    private static final String DRIFTED =
+            "select distinct o.poll_id from poll_options o join polls p on p.id = o.poll_id " +
+            "where p.status = 'ACTIVE' and o.vote_count <> (select count(*) from votes v where v.option_id = o.id)";
+
+    // ticks a retired poll keeps its counters with nothing pending, for votes still committing
+    private static final int DRAIN_TICKS = 2;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final long intervalMillis;
+    private final double enterRate;
+    private final double exitRate;
+    private final int coolDownTicks;
+
+    private final ConcurrentHashMap<Long, PollState> polls = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final Counter hotEntered;
+    private final Counter flushedVotes;
+    private final Counter flushFailures;
+    private final Counter reconciled;
+
+    public VoteTally(DataSource dataSource,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${polls.hot.flush-interval-ms:1000}") long intervalMillis,
+                     @Value("${polls.hot.enter-votes-per-second:50}") double enterRate,
+                     @Value("${polls.hot.exit-votes-per-second:10}") double exitRate,
+                     @Value("${polls.hot.cool-down-ticks:30}") int coolDownTicks) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.intervalMillis = Math.max(100, intervalMillis);
+        this.enterRate = enterRate;
+        this.exitRate = Math.min(exitRate, enterRate);
+        this.coolDownTicks = Math.max(1, coolDownTicks);
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("vote-tally").factory());
+
+        this.hotEntered = Counter.builder("polls.hot.entered")
+                .description("Times a poll switched to in-memory vote tallies")
+                .register(meterRegistry);
+        this.flushedVotes = Counter.builder("votes.tally.flushed")
+                .description("Buffered vote increments written to poll_options")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("votes.tally.flush.failed")
+                .description("Tally flushes that failed and were retried on the next tick")
+                .register(meterRegistry);
+        this.reconciled = Counter.builder("votes.tally.reconciled")
+                .description("Option vote counters corrected by a recount from the votes table")
+                .register(meterRegistry);
+        Gauge.builder("polls.hot", polls, m -> m.values().stream().filter(s -> s.hot).count())
+                .description("Polls currently in hot mode on this instance")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::backfill);
+        // increments buffered by a crashed or killed instance are gone; the vote rows are not
+        executor.execute(this::reconcile);
+        executor.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a vote for rate tracking. For a hot poll the increment is buffered and applied after the
+     * current transaction commits, and {@code true} is returned; otherwise the caller increments the row.
+     */
+    public boolean deferIncrement(Long pollId, Long optionId) {
+        PollState state = polls.computeIfAbsent(pollId, id -> new PollState());
+        state.window.increment();
+        PollCounters counters = state.counters;
+        if (!state.hot || counters == null) return false;
+
+        OptionCounter counter = counters.option(optionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.total.increment();
+                }
+            });
+        } else {
+            counter.total.increment();
+        }
+        return true;
+    }
+
+    /** Committed increments for the option not yet written to {@code vote_count}. */
+    public long pending(Long pollId, Long optionId) {
+        PollState state = polls.get(pollId);
+        if (state == null) return 0;
+        PollCounters counters = state.counters;
+        if (counters == null) return 0;
+        OptionCounter counter = counters.options.get(optionId);
+        return counter == null ? 0 : counter.total.sum() - counter.flushed;
+    }
+
+    void backfill() {
+        try {
+            int rows = jdbc.update(BACKFILL);
+            if (rows > 0) log.info("Backfilled vote_count for {} poll options", rows);
+        } catch (RuntimeException e) {
+            // reads fall back to counting votes for rows that are still null
+            log.warn("vote_count backfill failed: {}", e.toString());
+        }
+    }
+
+    /** Recounts every ACTIVE poll whose option counters disagree with its votes. */
+    public void reconcile() {
+        try {
+            List<Long> drifted = jdbc.queryForList(DRIFTED, Long.class);
+            for (Long pollId : drifted) recount(pollId);
+            if (!drifted.isEmpty()) log.info("Reconciled vote counts of {} polls", drifted.size());
+        } catch (RuntimeException e) {
+            log.warn("Vote count reconciliation failed: {}", e.toString());
+        }
+    }
+
+    /** Sets the poll's option counters to the number of their votes; returns the number of corrected options. */
+    int recount(Long pollId) {
+        Integer corrected = tx.execute(s -> {
+            Map<Long, Long> current = new HashMap<>();
+            jdbc.query(LOCK_OPTIONS, rs -> {
+                long count = rs.getLong(2);
+                current.put(rs.getLong(1), rs.wasNull() ? null : count);
+            }, pollId);
+            Map<Long, Long> counted = new HashMap<>();
+            jdbc.query(COUNT_VOTES, rs -> {
+                counted.put(rs.getLong(1), rs.getLong(2));
+            }, pollId);
+            List<Object[]> args = new ArrayList<>();
+            current.forEach((optionId, count) -> {
+                long actual = counted.getOrDefault(optionId, 0L);
+                if (count == null || count != actual) args.add(new Object[]{actual, optionId});
+            });
+            if (!args.isEmpty()) jdbc.batchUpdate(SET_COUNT, args);
+            return args.size();
+        });
+        int n = corrected == null ? 0 : corrected;
+        if (n > 0) {
+            reconciled.increment(n);
+            log.info("Recounted poll {}: corrected {} option counters", pollId, n);
+        }
+        return n;
+    }
+
+    /** One tally interval: hot/cool transitions, then the flush; run by the scheduler. */
+    public void tick() {
+        try {
+            updateModes();
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Vote tally tick failed: {}", e.toString());
+        }
+    }
+
+    private void updateModes() {
+        double perSecond = 1000.0 / intervalMillis;
+        polls.forEach((pollId, state) -> {
+            long votes = state.window.sumThenReset();
+            double rate = votes * perSecond;
+            if (!state.hot) {
+                if (rate >= enterRate) {
+                    if (state.counters == null) state.counters = new PollCounters();
+                    state.quietTicks = 0;
+                    state.hot = true;
+                    hotEntered.increment();
+                    log.info("Poll {} is hot ({} votes/s); buffering vote counts", pollId, Math.round(rate));
+                } else if (state.counters == null && votes == 0) {
+                    // votes racing this removal only lose a rate sample
+                    polls.remove(pollId, state);
+                }
+            } else if (rate < exitRate) {
+                if (++state.quietTicks >= coolDownTicks) {
+                    state.hot = false;
+                    state.drainTicks = 0;
+                    log.info("Poll {} cooled down ({} votes/s); counting votes in place", pollId, Math.round(rate));
+                }
+            } else {
+                state.quietTicks = 0;
+            }
+        });
+    }
+
+    /**
+     * Writes every pending delta in one batch; failed deltas stay pending for the next tick. Polls whose
+     * counters are dropped after cooling down are recounted.
+     */
+    void flush() {
+        List<Object[]> args = new ArrayList<>();
+        List<OptionCounter> counters = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        List<Long> retired = new ArrayList<>();
+        polls.forEach((pollId, state) -> {
+            PollCounters pc = state.counters;
+            if (pc == null) return;
+            boolean pendingAny = false;
+            for (var e : pc.options.entrySet()) {
+                long delta = e.getValue().total.sum() - e.getValue().flushed;
+                if (delta > 0) {
+                    pendingAny = true;
+                    args.add(new Object[]{delta, e.getKey()});
+                    counters.add(e.getValue());
+                    deltas.add(delta);
+                }
+            }
+            // a retired poll drops its counters once nothing has been pending for a few ticks
+            if (!state.hot && !pendingAny && ++state.drainTicks > DRAIN_TICKS) {
+                state.counters = null;
+                retired.add(pollId);
+            }
+        });
+
+        if (!args.isEmpty()) {
+            try {
+                tx.executeWithoutResult(s -> jdbc.batchUpdate(INCREMENT, args));
+                long total = 0;
+                for (int i = 0; i < counters.size(); i++) {
+                    counters.get(i).flushed += deltas.get(i);
+                    total += deltas.get(i);
+                }
+                flushedVotes.increment(total);
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                log.warn("Vote tally flush of {} options failed, retrying next tick: {}", args.size(), e.toString());
+            }
+        }
+        // also repairs increments lost while hot (a failed shutdown flush, a vote whose commit outlived the drain)
+        for (Long pollId : retired) {
+            try {
+                recount(pollId);
+            } catch (RuntimeException e) {
+                log.warn("Recount of poll {} after cool-down failed: {}", pollId, e.toString());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            // last chance to persist buffered increments on a graceful shutdown
+            flush();
+        } else {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class PollState {
+        final LongAdder window = new LongAdder();
+        volatile boolean hot;
+        // non-null while hot and while draining after it
+        volatile PollCounters counters;
+        // touched only by the tally thread
+        int quietTicks;
+        int drainTicks;
+    }
+
+    private static final class PollCounters {
+        final ConcurrentHashMap<Long, OptionCounter> options = new ConcurrentHashMap<>();
+
+        OptionCounter option(Long optionId) {
+            return options.computeIfAbsent(optionId, id -> new OptionCounter());
+        }
+    }
+
+    private static final class OptionCounter {
+        // committed increments since the poll turned hot; never reset, so concurrent adds are never lost
+        final LongAdder total = new LongAdder();
+        // written by the tally thread after a successful flush
+        volatile long flushed;
+    }
+}
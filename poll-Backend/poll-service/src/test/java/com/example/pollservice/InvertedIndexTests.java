@@ -0,0 +1,64 @@
+package com.example.pollservice;
+
+import com.example.pollservice.poll.InvertedIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvertedIndexTests {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new InvertedIndex();
+        index.add(1L, "Best programming language?", List.of("Java", "Kotlin", "Go"));
+        index.add(2L, "Favourite coffee", List.of("Espresso", "Latte"));
+        index.add(3L, "Java or coffee?", List.of("Both", "Neither"));
+        index.add(4L, "Crème brûlée or tiramisu", List.of("Crème", "Tiramisu"));
+    }
+
+    @Test
+    void tokensAreAnded_andQuestionHitsRankAboveOptionHits() {
+        // poll 3 has "java" in the question, poll 1 only in an option
+        assertThat(index.search("java ", 10)).containsExactly(3L, 1L);
+        assertThat(index.search("java coffee ", 10)).containsExactly(3L);
+        assertThat(index.search("java tiramisu ", 10)).isEmpty();
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefix_unlessFollowedBySeparator() {
+        assertThat(index.search("cof", 10)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("cof ", 10)).isEmpty();
+        assertThat(index.search("best progr", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void caseAndAccentsAreFolded() {
+        assertThat(index.search("CREME BRULEE", 10)).containsExactly(4L);
+    }
+
+    @Test
+    void outOfOrderAndDuplicateIds_areMergedIntoSortedPostings() {
+        InvertedIndex other = new InvertedIndex();
+        for (long id = 100; id > 0; id -= 2) other.add(id, "Lunch poll " + id, List.of("Pizza", "Salad"));
+        other.add(50L, "Lunch poll 50", List.of("Pizza", "Salad"));
+
+        assertThat(other.search("pizza ", 100)).hasSize(50).doesNotHaveDuplicates();
+        // equal scores: newer polls first
+        assertThat(other.search("pizza ", 3)).containsExactly(100L, 98L, 96L);
+
+        index.addAll(other);
+        assertThat(index.search("lunch 42", 10)).containsExactly(42L);
+    }
+
+    @Test
+    void limitAndEmptyQueries() {
+        assertThat(index.search("o", 1)).hasSize(1);
+        assertThat(index.search("   ", 10)).isEmpty();
+        assertThat(index.search("", 10)).isEmpty();
+    }
+}
@@ -2,15 +2,20 @@ package com.example.pollservice;
 
 import com.example.pollservice.api.dto.CreatePollRequest;
 import com.example.pollservice.api.dto.VoteRequest;
+import com.example.pollservice.poll.ArchivedVoteRepository;
 import com.example.pollservice.poll.Poll;
+import com.example.pollservice.poll.PollCreatedEvent;
 import com.example.pollservice.poll.PollOption;
 import com.example.pollservice.poll.PollOptionRepository;
 import com.example.pollservice.poll.PollRepository;
+import com.example.pollservice.poll.PollResultRepository;
 import com.example.pollservice.poll.PollService;
 import com.example.pollservice.poll.VoteRepository;
+import com.example.pollservice.poll.VoteTally;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.lang.reflect.Field;
 import java.time.Instant;
@@ -26,6 +31,7 @@ public class PollServiceTests {
     private PollRepository pollRepo;
     private PollOptionRepository optionRepo;
     private VoteRepository voteRepo;
+    private ApplicationEventPublisher events;
     private PollService service;
 
     @BeforeEach
@@ -33,7 +39,9 @@ public class PollServiceTests {
         pollRepo = mock(PollRepository.class);
         optionRepo = mock(PollOptionRepository.class);
         voteRepo = mock(VoteRepository.class);
-        service = new PollService(pollRepo, optionRepo, voteRepo);
+        events = mock(ApplicationEventPublisher.class);
+        service = new PollService(pollRepo, optionRepo, voteRepo,
+                mock(PollResultRepository.class), mock(ArchivedVoteRepository.class), mock(VoteTally.class), events);
     }
 
     @Test
@@ -60,6 +68,8 @@ public class PollServiceTests {
         verify(pollRepo).save(captor.capture());
         assertThat(captor.getValue().getCreatedBy()).isEqualTo("user@example.com");
         assertThat(captor.getValue().getQuestion()).isEqualTo("What?");
+        assertThat(created.status()).isEqualTo("ACTIVE");
+        verify(events).publishEvent(new PollCreatedEvent(123L, created.expiresAt(), "What?", List.of("A", "B")));
     }
 
     @Test
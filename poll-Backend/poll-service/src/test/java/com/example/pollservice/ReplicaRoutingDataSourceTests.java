@@ -0,0 +1,120 @@
+package com.example.pollservice;
+
+import com.example.pollservice.config.ReplicaLagMonitor;
+import com.example.pollservice.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Two embedded H2 databases stand in for the primary and a replica; "replication" is copying the heartbeat. */
+public class ReplicaRoutingDataSourceTests {
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate readWriteTx;
+
+    @BeforeEach
+    void setup() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        for (var db : new JdbcTemplate[]{primaryJdbc, replicaJdbc}) {
+            db.execute("create table marker (name varchar(16))");
+            db.execute("create table if not exists replica_heartbeat (id int not null primary key, beat_millis bigint not null)");
+        }
+        primaryJdbc.update("insert into marker values ('primary')");
+        replicaJdbc.update("insert into marker values ('replica')");
+
+        var registry = new SimpleMeterRegistry();
+        monitor = new ReplicaLagMonitor(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(5), Duration.ofSeconds(1), registry);
+        var routing = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), monitor, registry);
+        routing.afterPropertiesSet();
+        var dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        var txManager = new DataSourceTransactionManager(dataSource);
+        readWriteTx = new TransactionTemplate(txManager);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.unpin();
+        monitor.destroy();
+        primaryJdbc.execute("drop all objects");
+        replicaJdbc.execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransaction_goesToCaughtUpReplica() {
+        replicate();
+        assertThat(readOnlyTx.<String>execute(s -> marker())).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransaction_andNoTransaction_goToPrimary() {
+        replicate();
+        assertThat(readWriteTx.<String>execute(s -> marker())).isEqualTo("primary");
+        assertThat(marker()).isEqualTo("primary");
+    }
+
+    @Test
+    void pinnedThread_readsFromPrimary() {
+        replicate();
+        ReplicaRoutingDataSource.pinToPrimary();
+        assertThat(readOnlyTx.<String>execute(s -> marker())).isEqualTo("primary");
+
+        ReplicaRoutingDataSource.unpin();
+        assertThat(readOnlyTx.<String>execute(s -> marker())).isEqualTo("replica");
+    }
+
+    @Test
+    void laggingReplica_isTakenOutOfRotation() {
+        // the replica never received a heartbeat
+        monitor.check();
+        assertThat(monitor.healthyReplicas()).isEmpty();
+        assertThat(readOnlyTx.<String>execute(s -> marker())).isEqualTo("primary");
+
+        // heartbeat replicated, but a minute old
+        replicaJdbc.update("merge into replica_heartbeat key (id) values (1, ?)", System.currentTimeMillis() - 60_000);
+        monitor.check();
+        assertThat(readOnlyTx.<String>execute(s -> marker())).isEqualTo("primary");
+    }
+
+    private String marker() {
+        return jdbc.queryForObject("select name from marker", String.class);
+    }
+
+    /** Stamps the primary, copies the row to the replica as replication would, then re-evaluates. */
+    private void replicate() {
+        monitor.check();
+        Long beat = primaryJdbc.queryForObject("select beat_millis from replica_heartbeat where id = 1", Long.class);
+        replicaJdbc.update("merge into replica_heartbeat key (id) values (1, ?)", beat);
+        monitor.check();
+        assertThat(monitor.healthyReplicas()).containsExactly("replica-0");
+    }
+
+    private static DataSource h2(String name) {
+        var ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return ds;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.pollservice;
+
+import com.example.pollservice.poll.VoteTally;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Ticks are driven by hand: 1 s interval, hot from 5 votes/s, cool below 1 vote/s for 2 ticks. */
+public class VoteTallyTests {
+
+    private static final long POLL = 1L;
+    private static final long OPTION_A = 11L;
+    private static final long OPTION_B = 12L;
+
+    private JdbcTemplate jdbc;
+    private VoteTally tally;
+    private int voters;
+
+    @BeforeEach
+    void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:tally;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table polls (id bigint primary key, status varchar(16) not null)");
+        jdbc.execute("create table poll_options (id bigint primary key, poll_id bigint not null, vote_count bigint)");
+        jdbc.execute("create table votes (id bigint auto_increment primary key, poll_id bigint not null, " +
+                "option_id bigint not null, voter varchar(190) not null)");
+        jdbc.update("insert into polls values (?, 'ACTIVE')", POLL);
+        jdbc.update("insert into poll_options values (?, ?, 0)", OPTION_A, POLL);
+        jdbc.update("insert into poll_options values (?, ?, 0)", OPTION_B, POLL);
+
+        tally = new VoteTally(dataSource, new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(),
+                1000, 5, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tally.destroy();
+        jdbc.execute("drop all objects");
+    }
+
+    @Test
+    void hotPoll_buffersIncrements_andFlushesEachOnce() {
+        votes(OPTION_A, 10);
+        tally.tick();                       // 10 votes/s: hot from now on
+        assertThat(count(OPTION_A)).isEqualTo(10);
+
+        votes(OPTION_A, 4);
+        votes(OPTION_B, 2);
+        assertThat(count(OPTION_A)).isEqualTo(10);
+        assertThat(tally.pending(POLL, OPTION_A)).isEqualTo(4);
+        assertThat(tally.pending(POLL, OPTION_B)).isEqualTo(2);
+
+        tally.tick();
+        assertThat(count(OPTION_A)).isEqualTo(14);
+        assertThat(count(OPTION_B)).isEqualTo(2);
+        assertThat(tally.pending(POLL, OPTION_A)).isZero();
+
+        tally.tick();                       // nothing new: nothing written twice
+        assertThat(count(OPTION_A)).isEqualTo(14);
+    }
+
+    @Test
+    void failedFlush_keepsDeltasPending_untilTheNextTickSucceeds() {
+        votes(OPTION_A, 10);
+        tally.tick();
+        votes(OPTION_A, 6);
+
+        jdbc.execute("alter table poll_options rename to poll_options_offline");
+        tally.tick();
+        jdbc.execute("alter table poll_options_offline rename to poll_options");
+        assertThat(tally.pending(POLL, OPTION_A)).isEqualTo(6);
+
+        tally.tick();
+        assertThat(count(OPTION_A)).isEqualTo(16);
+        assertThat(tally.pending(POLL, OPTION_A)).isZero();
+    }
+
+    @Test
+    void coolDown_returnsToInPlaceCounting_andRecountsLostIncrements() {
+        votes(OPTION_A, 10);
+        tally.tick();
+        votes(OPTION_A, 5);
+        // a vote committed while hot whose buffered increment never made it (crash, failed shutdown flush)
+        insertVote(OPTION_B);
+
+        tally.tick();                       // 5 votes/s: still hot, flushes A
+        tally.tick();                       // quiet 1
+        tally.tick();                       // quiet 2: cooled down
+        assertThat(tally.deferIncrement(POLL, OPTION_A)).isFalse();
+        assertThat(count(OPTION_B)).isZero();
+
+        for (int i = 0; i < 4; i++) tally.tick();  // drained: counters dropped, poll recounted
+        assertThat(count(OPTION_A)).isEqualTo(15);
+        assertThat(count(OPTION_B)).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_recountsOnlyActivePollsThatDrifted() {
+        jdbc.update("insert into polls values (2, 'ARCHIVED')");
+        jdbc.update("insert into poll_options values (21, 2, 7)");
+        insertVote(OPTION_A);
+        insertVote(OPTION_A);
+        jdbc.update("update poll_options set vote_count = 5 where id = ?", OPTION_B);
+
+        tally.reconcile();
+
+        assertThat(count(OPTION_A)).isEqualTo(2);
+        assertThat(count(OPTION_B)).isZero();
+        // archived polls take their frozen results
+        assertThat(count(21L)).isEqualTo(7);
+    }
+
+    private void votes(long optionId, int n) {
+        for (int i = 0; i < n; i++) {
+            insertVote(optionId);
+            if (!tally.deferIncrement(POLL, optionId)) {
+                jdbc.update("update poll_options set vote_count = vote_count + 1 where id = ?", optionId);
+            }
+        }
+    }
+
+    private void insertVote(long optionId) {
+        jdbc.update("insert into votes (poll_id, option_id, voter) values (?, ?, ?)",
+                POLL, optionId, "voter" + (voters++) + "@example.com");
+    }
+
+    private long count(long optionId) {
+        return jdbc.queryForObject("select vote_count from poll_options where id = ?", Long.class, optionId);
+    }
+}
@@ -0,0 +1,52 @@
+package com.microservices.support.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Head sampler that never drops: spans are either sampled or record-only, so
+ * {@link TailSamplingSpanProcessor} can still keep an unsampled trace that turns out to be interesting.
+ * <ul>
+ *   <li>With a parent (local or from {@code traceparent}) the parent's sampled flag is followed, so the
+ *   gateway's decision carries through limits-service and poll-service.</li>
+ *   <li>A root span is sampled if its trace id falls under {@code ratio}. The per-route cap is applied
+ *   later by the span processor, because the route is only known once the span has ended.</li>
+ * </ul>
+ */
+public class HeadSampler implements Sampler {
+
+    private final Sampler ratio;
+    private final String description;
+
+    public HeadSampler(double ratio) {
+        this.ratio = Sampler.traceIdRatioBased(Math.max(0.0, Math.min(1.0, ratio)));
+        this.description = "HeadSampler{ratio=" + ratio + "}";
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+        if (parent.isValid()) {
+            return parent.isSampled() ? SamplingResult.recordAndSample() : SamplingResult.recordOnly();
+        }
+        SamplingResult byRatio = ratio.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        return byRatio.getDecision() == SamplingDecision.RECORD_AND_SAMPLE
+                ? SamplingResult.recordAndSample()
+                : SamplingResult.recordOnly();
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+}
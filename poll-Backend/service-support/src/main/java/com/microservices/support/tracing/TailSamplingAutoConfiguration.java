@@ -0,0 +1,67 @@
+package com.microservices.support.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.OpenTelemetryTracingAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanProcessors;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Replaces Boot's probability sampler and batch span processor with {@link HeadSampler} and
+ * {@link TailSamplingSpanProcessor}. {@code management.tracing.sampling.probability} is the head ratio
+ * for root spans; errors, 429/5xx and slow requests are exported regardless. {@code app.tracing.decision}
+ * selects where that tail decision is made: {@code local} (per service) or {@code collector} (per trace).
+ * <p>
+ * Boot still creates its own {@code BatchSpanProcessor} bean, but it is not part of {@link SpanProcessors}
+ * so it never receives spans.
+ */
+@AutoConfiguration(before = OpenTelemetryTracingAutoConfiguration.class)
+@ConditionalOnClass({SdkTracerProvider.class, SpanProcessors.class})
+@ConditionalOnProperty(prefix = "management.tracing", name = "enabled", matchIfMissing = true)
+public class TailSamplingAutoConfiguration {
+
+    @Bean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.1}") double probability) {
+        return new HeadSampler(probability);
+    }
+
+    @Bean
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(
+            ObjectProvider<SpanExporter> spanExporters,
+            MeterRegistry meterRegistry,
+            @Value("${app.tracing.decision:local}") String decision,
+            @Value("${app.tracing.max-sampled-roots-per-second-per-route:10}") double maxPerSecondPerRoute,
+            @Value("${app.tracing.slow-threshold-ms:1000}") long slowThresholdMs,
+            @Value("${app.tracing.max-buffered-traces:10000}") int maxBufferedTraces,
+            @Value("${app.tracing.buffer-timeout-seconds:30}") long bufferTimeoutSeconds,
+            @Value("${app.tracing.export.queue-size:4096}") int queueSize,
+            @Value("${app.tracing.export.batch-size:512}") int batchSize,
+            @Value("${app.tracing.export.interval-ms:1000}") long exportIntervalMs) {
+        return new TailSamplingSpanProcessor(
+                SpanExporter.composite(spanExporters.orderedStream().toList()),
+                meterRegistry,
+                TailSamplingSpanProcessor.Decision.valueOf(decision.trim().toUpperCase(Locale.ROOT)),
+                maxPerSecondPerRoute,
+                Duration.ofMillis(slowThresholdMs),
+                maxBufferedTraces,
+                Duration.ofSeconds(bufferTimeoutSeconds),
+                queueSize,
+                batchSize,
+                Duration.ofMillis(exportIntervalMs));
+    }
+
+    @Bean
+    public SpanProcessors spanProcessors(TailSamplingSpanProcessor tailSamplingSpanProcessor) {
+        return SpanProcessors.of(tailSamplingSpanProcessor);
+    }
+}
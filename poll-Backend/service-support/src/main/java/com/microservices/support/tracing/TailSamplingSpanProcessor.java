@@ -0,0 +1,371 @@
+package com.microservices.support.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.DelegatingSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tail-aware span processor in front of the exporters. {@link HeadSampler} makes the head decision; this
+ * processor caps head-sampled traces per route and decides what happens to the record-only ones.
+ * <p>
+ * The cap applies where a trace starts (normally the gateway): at most {@code maxPerSecondPerRoute}
+ * head-sampled traces per second per {@code http.route} (Micrometer's {@code uri} tag, or the span name,
+ * when absent). A trace over the cap is treated like an unsampled one.
+ * <p>
+ * What happens to unsampled traces depends on {@link Decision}:
+ * <ul>
+ *   <li>{@link Decision#LOCAL}: spans are buffered per trace until this service's local root ends, and the
+ *   fragment is exported only if one of its spans errored, carries a 429 or 5xx status, or the root took
+ *   longer than the slow threshold. Each service decides for its own fragment, so a trace that fails in
+ *   poll-service can be missing the limits-service spans. Use it when exporting straight to a backend.</li>
+ *   <li>{@link Decision#COLLECTOR}: every span is forwarded, and the trace root is stamped with
+ *   {@link #HEAD_SAMPLED}. The OpenTelemetry Collector's {@code tail_sampling} processor then decides once
+ *   per trace on the spans of all services (see {@code observability/otel-collector/config.yaml}), so the
+ *   gateway, limits-service and poll-service fragments are kept or dropped together.</li>
+ * </ul>
+ * Export goes through a bounded queue drained in batches by one daemon thread. When the queue is full
+ * spans are dropped and counted in {@code tracing.export.dropped} instead of blocking request threads.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    public enum Decision { LOCAL, COLLECTOR }
+
+    /** On the exported trace root in collector mode: whether the head sample survived the per-route cap. */
+    public static final AttributeKey<Boolean> HEAD_SAMPLED = AttributeKey.booleanKey("sampling.head");
+
+    private static final Logger log = LoggerFactory.getLogger(TailSamplingSpanProcessor.class);
+
+    // Micrometer observation tag (string) and OTel semantic-convention attributes (long)
+    private static final AttributeKey<String> STATUS = AttributeKey.stringKey("status");
+    private static final AttributeKey<Long> HTTP_RESPONSE_STATUS = AttributeKey.longKey("http.response.status_code");
+    private static final AttributeKey<Long> HTTP_STATUS = AttributeKey.longKey("http.status_code");
+    private static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+    private static final AttributeKey<String> URI = AttributeKey.stringKey("uri");
+
+    // distinct routes with their own cap; later routes share one overflow bucket
+    private static final int MAX_ROUTES = 512;
+
+    private final SpanExporter exporter;
+    private final Decision decision;
+    private final long capIntervalNanos;
+    private final long slowThresholdNanos;
+    private final int maxBufferedTraces;
+    private final long bufferTimeoutNanos;
+    private final int batchSize;
+    private final long exportIntervalMillis;
+
+    private final ConcurrentHashMap<String, RateCap> caps = new ConcurrentHashMap<>();
+    private final RateCap overflowCap;
+    private final ConcurrentHashMap<String, TraceBuffer> buffers = new ConcurrentHashMap<>();
+    private final BlockingQueue<SpanData> queue;
+    private final Thread worker;
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    private final Counter keptTraces;
+    private final Counter discardedTraces;
+    private final Counter cappedTraces;
+    private final Counter bufferOverflow;
+    private final Counter exportDropped;
+    private final Counter exportFailed;
+
+    public TailSamplingSpanProcessor(SpanExporter exporter, MeterRegistry meterRegistry, Decision decision,
+                                     double maxPerSecondPerRoute, Duration slowThreshold,
+                                     int maxBufferedTraces, Duration bufferTimeout,
+                                     int queueSize, int batchSize, Duration exportInterval) {
+        this.exporter = exporter;
+        this.decision = decision;
+        this.capIntervalNanos = maxPerSecondPerRoute > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxPerSecondPerRoute) : 0;
+        this.overflowCap = new RateCap(capIntervalNanos);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxBufferedTraces = maxBufferedTraces;
+        this.bufferTimeoutNanos = bufferTimeout.toNanos();
+        this.batchSize = batchSize;
+        this.exportIntervalMillis = exportInterval.toMillis();
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        this.keptTraces = Counter.builder("tracing.tail.traces").tag("decision", "kept")
+                .description("Unsampled trace fragments exported because of an error, 429/5xx or latency")
+                .register(meterRegistry);
+        this.discardedTraces = Counter.builder("tracing.tail.traces").tag("decision", "discarded")
+                .description("Unsampled trace fragments discarded at the local root")
+                .register(meterRegistry);
+        this.cappedTraces = Counter.builder("tracing.head.capped")
+                .description("Head-sampled traces demoted because their route was over the per-route cap")
+                .register(meterRegistry);
+        this.bufferOverflow = Counter.builder("tracing.tail.buffer.overflow")
+                .description("Spans not buffered because max-buffered-traces was reached")
+                .register(meterRegistry);
+        this.exportDropped = Counter.builder("tracing.export.dropped")
+                .description("Spans dropped because the export queue was full")
+                .register(meterRegistry);
+        this.exportFailed = Counter.builder("tracing.export.failed")
+                .description("Spans in export batches the exporter reported as failed")
+                .register(meterRegistry);
+        Gauge.builder("tracing.export.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("tracing.tail.buffer.traces", buffers, ConcurrentHashMap::size).register(meterRegistry);
+
+        this.worker = Thread.ofPlatform().daemon().name("tail-sampling-export").unstarted(this::drainLoop);
+        this.worker.start();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        // a head-sampled trace starting here is held until its root ends, when the route (and the cap) is known
+        if (span.getSpanContext().isSampled() && !span.getParentSpanContext().isValid()) {
+            String traceId = span.getSpanContext().getTraceId();
+            if (buffers.size() < maxBufferedTraces) {
+                buffers.computeIfAbsent(traceId, id -> new TraceBuffer(System.nanoTime()));
+            } else {
+                bufferOverflow.increment();
+            }
+        }
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return decision == Decision.LOCAL && capIntervalNanos > 0;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext context = span.getSpanContext();
+        boolean traceRoot = !span.getParentSpanContext().isValid();
+        if (decision == Decision.COLLECTOR) {
+            SpanData data = span.toSpanData();
+            enqueue(traceRoot ? withHeadDecision(data, context.isSampled() && admit(data)) : data);
+            return;
+        }
+
+        String traceId = context.getTraceId();
+        TraceBuffer buffer = buffers.get(traceId);
+        if (context.isSampled() && buffer == null) {
+            // sampled upstream (or the cap is off, or the buffer was full): follow the head decision
+            enqueue(span.toSpanData());
+            return;
+        }
+
+        SpanData data = span.toSpanData();
+        if (buffer == null) {
+            if (buffers.size() >= maxBufferedTraces) {
+                bufferOverflow.increment();
+                return;
+            }
+            buffer = buffers.computeIfAbsent(traceId, id -> new TraceBuffer(System.nanoTime()));
+        }
+
+        boolean localRoot = traceRoot || span.getParentSpanContext().isRemote();
+        boolean interesting = isInteresting(data) || (localRoot && span.getLatencyNanos() >= slowThresholdNanos);
+        boolean headKept = localRoot && context.isSampled() && admit(data);
+        List<SpanData> fragment;
+        synchronized (buffer) {
+            buffer.spans.add(data);
+            buffer.keep |= interesting;
+            if (!localRoot) return;
+            fragment = buffer.keep || headKept ? List.copyOf(buffer.spans) : null;
+        }
+
+        buffers.remove(traceId, buffer);
+        if (fragment != null) {
+            if (!headKept) keptTraces.increment();
+            fragment.forEach(this::enqueue);
+        } else {
+            discardedTraces.increment();
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        exportPending();
+        return exporter.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return CompletableResultCode.ofSuccess();
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exportPending();
+        return exporter.shutdown();
+    }
+
+    /** Takes a permit from the root span's route cap; a miss demotes the trace to the tail decision. */
+    private boolean admit(SpanData root) {
+        if (capIntervalNanos == 0) return true;
+        if (capFor(routeOf(root)).tryAcquire()) return true;
+        cappedTraces.increment();
+        return false;
+    }
+
+    private RateCap capFor(String route) {
+        RateCap cap = caps.get(route);
+        if (cap != null) return cap;
+        if (caps.size() >= MAX_ROUTES) return overflowCap;
+        return caps.computeIfAbsent(route, r -> new RateCap(capIntervalNanos));
+    }
+
+    private static String routeOf(SpanData data) {
+        String route = data.getAttributes().get(HTTP_ROUTE);
+        if (route == null) route = data.getAttributes().get(URI);
+        return route != null ? route : data.getName();
+    }
+
+    private static SpanData withHeadDecision(SpanData data, boolean headSampled) {
+        Attributes attributes = data.getAttributes().toBuilder().put(HEAD_SAMPLED, headSampled).build();
+        return new DelegatingSpanData(data) {
+            @Override
+            public Attributes getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            public int getTotalAttributeCount() {
+                return super.getTotalAttributeCount() + 1;
+            }
+        };
+    }
+
+    private static boolean isInteresting(SpanData data) {
+        if (data.getStatus().getStatusCode() == StatusCode.ERROR) return true;
+        long status = statusOf(data);
+        return status == 429 || status >= 500;
+    }
+
+    private static long statusOf(SpanData data) {
+        Long code = data.getAttributes().get(HTTP_RESPONSE_STATUS);
+        if (code == null) code = data.getAttributes().get(HTTP_STATUS);
+        if (code != null) return code;
+        String status = data.getAttributes().get(STATUS);
+        if (status != null && status.length() == 3) {
+            try {
+                return Integer.parseInt(status);
+            } catch (NumberFormatException ignored) {
+                // CLIENT_ERROR / UNKNOWN etc.
+            }
+        }
+        return 0;
+    }
+
+    private void enqueue(SpanData data) {
+        if (!queue.offer(data)) {
+            exportDropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<SpanData> batch = new ArrayList<>(batchSize);
+        long nextSweep = System.nanoTime() + bufferTimeoutNanos;
+        while (!shutdown.get()) {
+            try {
+                SpanData first = queue.poll(exportIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    export(batch);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Span export loop error: {}", e.toString());
+            }
+            if (System.nanoTime() - nextSweep >= 0) {
+                evictStale();
+                nextSweep = System.nanoTime() + bufferTimeoutNanos;
+            }
+        }
+    }
+
+    private void exportPending() {
+        List<SpanData> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            export(batch);
+        }
+    }
+
+    private void export(List<SpanData> batch) {
+        if (batch.isEmpty()) return;
+        CompletableResultCode result = exporter.export(List.copyOf(batch));
+        result.join(10, TimeUnit.SECONDS);
+        if (!result.isSuccess()) {
+            exportFailed.increment(batch.size());
+        }
+        batch.clear();
+    }
+
+    // traces whose local root never ended (leaked or still running past the timeout) are discarded
+    private void evictStale() {
+        long now = System.nanoTime();
+        buffers.values().removeIf(b -> {
+            boolean stale = now - b.createdNanos > bufferTimeoutNanos;
+            if (stale) discardedTraces.increment();
+            return stale;
+        });
+    }
+
+    private static final class TraceBuffer {
+        final long createdNanos;
+        final List<SpanData> spans = new ArrayList<>(8);
+        boolean keep;
+
+        TraceBuffer(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    /** Lock-free spacing limiter: one permit per interval with a burst of one second's worth. */
+    static final class RateCap {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+        RateCap(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = TimeUnit.SECONDS.toNanos(1);
+        }
+
+        boolean tryAcquire() {
+            if (intervalNanos == 0) return true;
+            long now = System.nanoTime();
+            while (true) {
+                long current = next.get();
+                if (current - now > 0) return false;
+                long updated = Math.max(current, now - burstNanos) + intervalNanos;
+                if (next.compareAndSet(current, updated)) return true;
+            }
+        }
+    }
+}
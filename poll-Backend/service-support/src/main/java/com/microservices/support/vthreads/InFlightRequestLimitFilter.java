@@ -0,0 +1,78 @@
+package com.microservices.support.vthreads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests in flight when Tomcat runs on virtual threads.
+ * Without a platform thread pool there is no natural cap, so thousands of virtual threads would
+ * otherwise pile up on Hikari connection acquisition. The default bound is a multiple of the
+ * Hikari pool size; requests that cannot get a permit within the wait time are rejected with 503.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InFlightRequestLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Counter rejected;
+
+    public InFlightRequestLimitFilter(int poolSize, int requestsPerConnection, int maxInFlight,
+                                      long acquireTimeoutMs, MeterRegistry meterRegistry) {
+        int limit = maxInFlight > 0 ? maxInFlight : Math.max(1, poolSize * requestsPerConnection);
+        this.permits = new Semaphore(limit);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.rejected = meterRegistry.counter("http.server.requests.inflight.rejected");
+        Gauge.builder("http.server.requests.inflight", permits, p -> limit - p.availablePermits())
+                .description("Requests currently admitted by the in-flight limiter")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.inflight.limit", () -> limit)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // keep health checks and scrapes answering while the service is saturated
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Server busy\"}");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
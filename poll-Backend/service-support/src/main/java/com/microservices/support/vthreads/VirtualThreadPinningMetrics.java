@@ -0,0 +1,45 @@
+package com.microservices.support.vthreads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event into Micrometer so carrier-thread pinning
+ * (synchronized blocks or native frames around blocking I/O) shows up on the Prometheus dashboards.
+ */
+public class VirtualThreadPinningMetrics implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMetrics.class);
+
+    private final RecordingStream stream;
+
+    public VirtualThreadPinningMetrics(long thresholdMs, MeterRegistry meterRegistry) {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier while blocking")
+                .register(meterRegistry);
+        Counter submitFailed = Counter.builder("jvm.threads.virtual.submit.failed")
+                .description("Virtual thread start or unpark attempts that could not be scheduled")
+                .register(meterRegistry);
+
+        this.stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMs));
+        stream.enable("jdk.VirtualThreadSubmitFailed");
+        stream.onEvent("jdk.VirtualThreadPinned", e -> pinned.record(e.getDuration()));
+        stream.onEvent("jdk.VirtualThreadSubmitFailed", e -> submitFailed.increment());
+        stream.setMaxAge(Duration.ofSeconds(10));
+        stream.startAsync();
+        log.info("Virtual thread pinning diagnostics enabled (threshold={}ms)", thresholdMs);
+    }
+
+    @Override
+    public void destroy() {
+        stream.close();
+    }
+}
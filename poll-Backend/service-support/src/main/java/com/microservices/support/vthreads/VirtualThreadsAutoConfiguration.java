@@ -0,0 +1,44 @@
+package com.microservices.support.vthreads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Safeguards for servlet services running Tomcat on virtual threads ({@code spring.threads.virtual.enabled}):
+ * an in-flight request limit sized from the Hikari pool, and JFR pinning diagnostics.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsAutoConfiguration {
+
+    @Bean
+    public VirtualThreadPinningMetrics virtualThreadPinningMetrics(
+            @Value("${app.vthreads.pinned-threshold-ms:20}") long thresholdMs,
+            MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMetrics(thresholdMs, meterRegistry);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(OncePerRequestFilter.class)
+    static class InFlightLimitConfiguration {
+
+        @Bean
+        public InFlightRequestLimitFilter inFlightRequestLimitFilter(
+                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                @Value("${app.vthreads.requests-per-connection:4}") int requestsPerConnection,
+                @Value("${app.vthreads.max-in-flight:0}") int maxInFlight,
+                @Value("${app.vthreads.acquire-timeout-ms:1000}") long acquireTimeoutMs,
+                MeterRegistry meterRegistry) {
+            return new InFlightRequestLimitFilter(poolSize, requestsPerConnection, maxInFlight,
+                    acquireTimeoutMs, meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.microservices.support.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Cap of 1 trace/s per route; each test builds its own provider and shuts it down to drain the export queue. */
+public class TailSamplingSpanProcessorTests {
+
+    private final CollectingExporter exporter = new CollectingExporter();
+    private SdkTracerProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) provider.shutdown();
+    }
+
+    @Test
+    void routeCap_isKeyedOnHttpRoute_notOnTheGenericSpanName() {
+        Tracer tracer = tracer(1.0, TailSamplingSpanProcessor.Decision.LOCAL);
+
+        request(tracer, "/api/polls", 200);
+        request(tracer, "/api/polls/{id}", 200);
+        request(tracer, "/api/polls", 200);          // second on the route within the second: capped, fast, OK
+
+        assertThat(exported()).extracting(s -> s.getAttributes().get(AttributeKey.stringKey("http.route")))
+                .containsExactlyInAnyOrder("/api/polls", "/api/polls/{id}");
+    }
+
+    @Test
+    void cappedTrace_isStillKeptWhenItFails() {
+        Tracer tracer = tracer(1.0, TailSamplingSpanProcessor.Decision.LOCAL);
+
+        request(tracer, "/api/polls", 200);
+        request(tracer, "/api/polls", 503);
+
+        assertThat(exported()).hasSize(2);
+    }
+
+    @Test
+    void unsampledTrace_isExportedWholeOnlyWhenAChildErrors() {
+        Tracer tracer = tracer(0.0, TailSamplingSpanProcessor.Decision.LOCAL);
+
+        Span quiet = tracer.spanBuilder("http get").startSpan();
+        try (Scope ignored = quiet.makeCurrent()) {
+            tracer.spanBuilder("select").startSpan().end();
+        }
+        quiet.end();
+
+        Span failing = tracer.spanBuilder("http get").startSpan();
+        try (Scope ignored = failing.makeCurrent()) {
+            tracer.spanBuilder("select").startSpan().setStatus(StatusCode.ERROR).end();
+        }
+        failing.end();
+
+        assertThat(exported()).hasSize(2)
+                .allMatch(s -> s.getTraceId().equals(failing.getSpanContext().getTraceId()));
+    }
+
+    @Test
+    void collectorMode_forwardsEverySpan_andStampsTheHeadDecisionOnTheRoot() {
+        Tracer tracer = tracer(1.0, TailSamplingSpanProcessor.Decision.COLLECTOR);
+
+        Span first = tracer.spanBuilder("http get").setAttribute("http.route", "/api/polls").startSpan();
+        try (Scope ignored = first.makeCurrent()) {
+            tracer.spanBuilder("select").startSpan().end();
+        }
+        first.end();
+        request(tracer, "/api/polls", 200);         // over the cap: forwarded, but not head-sampled
+
+        List<SpanData> spans = exported();
+        assertThat(spans).hasSize(3);
+        assertThat(spans).filteredOn(s -> s.getName().equals("select"))
+                .allMatch(s -> s.getAttributes().get(TailSamplingSpanProcessor.HEAD_SAMPLED) == null);
+        assertThat(spans).filteredOn(s -> !s.getParentSpanContext().isValid())
+                .extracting(s -> s.getAttributes().get(TailSamplingSpanProcessor.HEAD_SAMPLED))
+                .containsExactly(true, false);
+    }
+
+    private Tracer tracer(double ratio, TailSamplingSpanProcessor.Decision decision) {
+        var processor = new TailSamplingSpanProcessor(exporter, new SimpleMeterRegistry(), decision,
+                1, Duration.ofSeconds(10), 100, Duration.ofSeconds(30), 100, 10, Duration.ofMillis(50));
+        provider = SdkTracerProvider.builder()
+                .setSampler(new HeadSampler(ratio))
+                .addSpanProcessor(processor)
+                .build();
+        return provider.get("test");
+    }
+
+    private static void request(Tracer tracer, String route, long status) {
+        tracer.spanBuilder("http get")
+                .setAttribute("http.route", route)
+                .setAttribute("http.response.status_code", status)
+                .startSpan()
+                .end();
+    }
+
+    private List<SpanData> exported() {
+        provider.shutdown().join(10, TimeUnit.SECONDS);
+        return exporter.spans();
+    }
+
+    private static final class CollectingExporter implements SpanExporter {
+        private final List<SpanData> spans = new ArrayList<>();
+
+        @Override
+        public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        synchronized List<SpanData> spans() {
+            return List.copyOf(spans);
+        }
+    }
+}
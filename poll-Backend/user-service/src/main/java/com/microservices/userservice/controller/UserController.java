@@ -1,9 +1,12 @@
 package com.microservices.userservice.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import com.microservices.userservice.payload.auth.UserDetailsResponse;
+import com.microservices.userservice.payload.user.UserBatchRequest;
 import com.microservices.userservice.payload.user.UserDetailsRequest;
 import com.microservices.userservice.service.UserService;
 import org.springframework.web.server.ResponseStatusException;
@@ -32,6 +35,14 @@ public class UserController {
 		return userService.getUserDetails(id);
 	}
 
+	/*
+	 * Resolve many users in one call (e.g. poll creator names for a whole page)
+	 */
+	@PostMapping("/batch")
+	public List<UserDetailsResponse> getUserDetailsBatch(@RequestBody UserBatchRequest request) {
+		return userService.getUserDetails(request.getIds());
+	}
+
 	// New: Get current user by X-User-Id header (used when gateway forwards user id)
 	@GetMapping("/me")
 	public UserDetailsResponse getCurrentUser(@RequestHeader(name = "X-User-Id", required = false) String userIdHeader) {
@@ -7,6 +7,7 @@ import java.util.Set;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -19,7 +20,10 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import com.microservices.userservice.service.UserCacheInvalidationListener;
+
 @Entity
+@EntityListeners(UserCacheInvalidationListener.class)
 @Table(name = "users", uniqueConstraints = { @UniqueConstraint(name = "uk_users_email", columnNames = { "email" }) })
 public class User {
 
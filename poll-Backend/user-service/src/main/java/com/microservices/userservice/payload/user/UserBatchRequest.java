@@ -0,0 +1,16 @@
+package com.microservices.userservice.payload.user;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class UserBatchRequest {
+
+	private List<Long> ids;
+
+}
@@ -3,6 +3,7 @@ package com.microservices.userservice.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,6 +14,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 	Optional<User> findByEmail(String email);
 
+	// fetch roles in the same query instead of one select per user
+	@EntityGraph(attributePaths = "roles")
 	List<User> findByIdIn(List<Long> userIds);
 
 	Boolean existsByEmail(String email);
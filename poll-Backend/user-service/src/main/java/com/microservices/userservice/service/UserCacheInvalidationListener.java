@@ -0,0 +1,28 @@
+package com.microservices.userservice.service;
+
+import com.microservices.userservice.model.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener that keeps {@link UserDetailsCache} consistent with profile changes.
+ * Instantiated by Hibernate through Spring's bean container, so the cache is injected.
+ */
+public class UserCacheInvalidationListener {
+
+	private final UserDetailsCache cache;
+
+	public UserCacheInvalidationListener(UserDetailsCache cache) {
+		this.cache = cache;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void onChange(User user) {
+		cache.evict(user.getId(), user.getEmail());
+	}
+
+}
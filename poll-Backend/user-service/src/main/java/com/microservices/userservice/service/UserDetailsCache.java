@@ -0,0 +1,98 @@
+package com.microservices.userservice.service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservices.userservice.payload.auth.UserDetailsResponse;
+import com.microservices.userservice.util.enums.Role;
+import com.microservices.userservice.util.enums.Status;
+
+/**
+ * Bounded, TTL-evicting cache of {@link UserDetailsResponse} indexed by user id and by email.
+ * Only resolved users are cached; a miss always falls through to the repository.
+ * Entries are immutable snapshots and every read returns a fresh response, so a caller that
+ * modifies its response never changes what the next caller gets.
+ */
+@Component
+public class UserDetailsCache {
+
+	private final Cache<Long, Snapshot> byId;
+	private final Cache<String, Long> idByEmail;
+
+	public UserDetailsCache(@Value("${app.user-cache.max-size:10000}") long maxSize,
+			@Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+		this.byId = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.build();
+		this.idByEmail = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.build();
+	}
+
+	public UserDetailsResponse getById(Long id) {
+		return id == null ? null : toResponse(byId.getIfPresent(id));
+	}
+
+	public UserDetailsResponse getByEmail(String email) {
+		if (email == null) {
+			return null;
+		}
+		Long id = idByEmail.getIfPresent(normalize(email));
+		return id == null ? null : toResponse(byId.getIfPresent(id));
+	}
+
+	public void put(UserDetailsResponse details) {
+		if (details == null || details.getId() == null) {
+			return;
+		}
+		byId.put(details.getId(), new Snapshot(details.getId(), details.getName(), details.getEmail(),
+				details.getStatus(), details.getRoleName()));
+		if (details.getEmail() != null) {
+			idByEmail.put(normalize(details.getEmail()), details.getId());
+		}
+	}
+
+	/*
+	 * Drop every entry for the user; call whenever name, email or roles change.
+	 */
+	public void evict(Long id, String email) {
+		if (id != null) {
+			Snapshot previous = byId.getIfPresent(id);
+			byId.invalidate(id);
+			if (previous != null && previous.email() != null) {
+				idByEmail.invalidate(normalize(previous.email()));
+			}
+		}
+		if (email != null) {
+			idByEmail.invalidate(normalize(email));
+		}
+	}
+
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static UserDetailsResponse toResponse(Snapshot snapshot) {
+		if (snapshot == null) {
+			return null;
+		}
+		UserDetailsResponse response = new UserDetailsResponse();
+		response.setId(snapshot.id());
+		response.setName(snapshot.name());
+		response.setEmail(snapshot.email());
+		response.setStatus(snapshot.status());
+		response.setRoleName(snapshot.roleName());
+		return response;
+	}
+
+	private record Snapshot(Long id, String name, String email, Status status, Role roleName) {
+	}
+
+}
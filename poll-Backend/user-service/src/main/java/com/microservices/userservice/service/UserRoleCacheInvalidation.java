@@ -0,0 +1,42 @@
+package com.microservices.userservice.service;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.stereotype.Component;
+
+import com.microservices.userservice.model.User;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Evicts a user from {@link UserDetailsCache} when only the {@code roles} element collection changes.
+ * Such a change is written as a collection update without the owning row, so the entity's
+ * {@code @PostUpdate} callback in {@link UserCacheInvalidationListener} may never fire.
+ */
+@Component
+public class UserRoleCacheInvalidation {
+
+	public UserRoleCacheInvalidation(EntityManagerFactory entityManagerFactory, UserDetailsCache cache) {
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COLLECTION_UPDATE,
+				(PostCollectionUpdateEventListener) event -> evict(cache, event));
+		registry.appendListeners(EventType.POST_COLLECTION_RECREATE,
+				(PostCollectionRecreateEventListener) event -> evict(cache, event));
+		registry.appendListeners(EventType.POST_COLLECTION_REMOVE,
+				(PostCollectionRemoveEventListener) event -> evict(cache, event));
+	}
+
+	private static void evict(UserDetailsCache cache, AbstractCollectionEvent event) {
+		if (event.getAffectedOwnerOrNull() instanceof User user) {
+			cache.evict(user.getId(), user.getEmail());
+		}
+	}
+
+}
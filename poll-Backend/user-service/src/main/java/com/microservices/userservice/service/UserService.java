@@ -1,8 +1,15 @@
 package com.microservices.userservice.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.microservices.userservice.model.User;
@@ -17,6 +24,12 @@ public class UserService {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private UserDetailsCache userDetailsCache;
+
+	@Value("${app.user-batch.max-size:500}")
+	private int maxBatchSize;
+
 	public UserDetailsResponse getUserDetails(User user) {
 
 		UserDetailsResponse response = new UserDetailsResponse();
@@ -39,30 +52,96 @@ public class UserService {
 
 	public UserDetailsResponse getUserDetails(UserDetailsRequest request) {
 
+		UserDetailsResponse cached = request.getId() != null ? userDetailsCache.getById(request.getId())
+				: userDetailsCache.getByEmail(request.getUsernameOrEmail());
+		if (cached != null) {
+			return cached;
+		}
+
 		UserDetailsResponse response = new UserDetailsResponse();
 
 		Optional<User> user = request.getId() != null ? userRepository.findById(request.getId()) : Optional.empty();
 
 		if (!user.isPresent() && request.getUsernameOrEmail() != null) {
+			cached = userDetailsCache.getByEmail(request.getUsernameOrEmail());
+			if (cached != null) {
+				return cached;
+			}
 			user = userRepository.findByEmail(request.getUsernameOrEmail());
 		}
 
 		if (user.isPresent()) {
 			response = getUserDetails(user.get());
+			userDetailsCache.put(response);
 		}
 		return response;
 	}
 
 	public UserDetailsResponse getUserDetails(Long id) {
 
+		UserDetailsResponse cached = userDetailsCache.getById(id);
+		if (cached != null) {
+			return cached;
+		}
+
 		UserDetailsResponse response = new UserDetailsResponse();
 
 		Optional<User> user = id != null ? userRepository.findById(id) : Optional.empty();
 
 		if (user.isPresent()) {
 			response = getUserDetails(user.get());
+			userDetailsCache.put(response);
+		}
+
+		return response;
+	}
+
+	/*
+	 * Resolve many users at once: cache hits first, then a single findByIdIn for the rest.
+	 * Unknown ids are omitted; the result follows the order of the first occurrence of each id.
+	 */
+	public List<UserDetailsResponse> getUserDetails(List<Long> ids) {
+
+		if (ids == null || ids.isEmpty()) {
+			return List.of();
+		}
+		if (ids.size() > maxBatchSize) {
+			throw new IllegalArgumentException("At most " + maxBatchSize + " ids may be requested per batch");
 		}
 
+		Set<Long> unique = new LinkedHashSet<>();
+		for (Long id : ids) {
+			if (id != null) {
+				unique.add(id);
+			}
+		}
+
+		Map<Long, UserDetailsResponse> resolved = new HashMap<>();
+		List<Long> misses = new ArrayList<>();
+		for (Long id : unique) {
+			UserDetailsResponse cached = userDetailsCache.getById(id);
+			if (cached != null) {
+				resolved.put(id, cached);
+			} else {
+				misses.add(id);
+			}
+		}
+
+		if (!misses.isEmpty()) {
+			for (User user : userRepository.findByIdIn(misses)) {
+				UserDetailsResponse details = getUserDetails(user);
+				userDetailsCache.put(details);
+				resolved.put(details.getId(), details);
+			}
+		}
+
+		List<UserDetailsResponse> response = new ArrayList<>(resolved.size());
+		for (Long id : unique) {
+			UserDetailsResponse details = resolved.get(id);
+			if (details != null) {
+				response.add(details);
+			}
+		}
 		return response;
 	}
 
@@ -0,0 +1,147 @@
+package com.microservices.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.microservices.userservice.model.User;
+import com.microservices.userservice.payload.auth.UserDetailsResponse;
+import com.microservices.userservice.util.enums.Role;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/** A small cache holding one user, Alice (id 1), looked up by id and by email. */
+public class UserDetailsCacheTests {
+
+	private UserDetailsCache cache;
+
+	@BeforeEach
+	void setup() {
+		cache = new UserDetailsCache(100, 300);
+		cache.put(details(1L, "Alice", "alice@example.com", Role.USER));
+	}
+
+	@Test
+	void getByEmail_ignoresCaseAndSurroundingSpaces() {
+		assertThat(cache.getByEmail("  ALICE@example.com ").getId()).isEqualTo(1L);
+	}
+
+	@Test
+	void returnedCopy_isIndependentOfTheCachedEntry() {
+		UserDetailsResponse first = cache.getById(1L);
+		first.setName("Mallory");
+		first.setRoleName(Role.ADMIN);
+
+		UserDetailsResponse second = cache.getById(1L);
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getName()).isEqualTo("Alice");
+		assertThat(second.getRoleName()).isEqualTo(Role.USER);
+		assertThat(cache.getByEmail("alice@example.com").getName()).isEqualTo("Alice");
+	}
+
+	@Test
+	void putCopiesTheResponse_soLaterChangesToItAreNotCached() {
+		UserDetailsResponse bob = details(2L, "Bob", "bob@example.com", Role.USER);
+		cache.put(bob);
+		bob.setName("Mallory");
+
+		assertThat(cache.getById(2L).getName()).isEqualTo("Bob");
+	}
+
+	@Test
+	void evict_dropsBothIndexes_includingThePreviousEmail() {
+		// the email has already changed in the database; the old one must not resolve any more
+		cache.evict(1L, "alice@new.example.com");
+
+		assertThat(cache.getById(1L)).isNull();
+		assertThat(cache.getByEmail("alice@example.com")).isNull();
+	}
+
+	@Test
+	void userUpdate_evictsThroughTheEntityListener() {
+		User alice = user(1L, "alice@example.com", Role.USER);
+		alice.setName("Alice Smith");
+
+		new UserCacheInvalidationListener(cache).onChange(alice);
+
+		assertThat(cache.getById(1L)).isNull();
+		assertThat(cache.getByEmail("alice@example.com")).isNull();
+	}
+
+	@Test
+	void roleCollectionChange_evictsTheOwningUser() {
+		Map<EventType<?>, Object> listeners = new HashMap<>();
+		new UserRoleCacheInvalidation(entityManagerFactory(listeners), cache);
+		cache.put(details(2L, "Bob", "bob@example.com", Role.USER));
+
+		PostCollectionUpdateEvent event = mock(PostCollectionUpdateEvent.class);
+		when(event.getAffectedOwnerOrNull()).thenReturn(user(1L, "alice@example.com", Role.ADMIN));
+		((PostCollectionUpdateEventListener) listeners.get(EventType.POST_COLLECTION_UPDATE))
+				.onPostUpdateCollection(event);
+
+		assertThat(cache.getById(1L)).isNull();
+		assertThat(cache.getByEmail("alice@example.com")).isNull();
+		assertThat(cache.getById(2L)).isNotNull();
+		assertThat(listeners).containsKeys(EventType.POST_COLLECTION_RECREATE, EventType.POST_COLLECTION_REMOVE);
+	}
+
+	@Test
+	void collectionChangeOfAnotherEntity_keepsTheCache() {
+		Map<EventType<?>, Object> listeners = new HashMap<>();
+		new UserRoleCacheInvalidation(entityManagerFactory(listeners), cache);
+
+		PostCollectionUpdateEvent event = mock(PostCollectionUpdateEvent.class);
+		when(event.getAffectedOwnerOrNull()).thenReturn(new Object());
+		((PostCollectionUpdateEventListener) listeners.get(EventType.POST_COLLECTION_UPDATE))
+				.onPostUpdateCollection(event);
+
+		assertThat(cache.getById(1L)).isNotNull();
+	}
+
+	/** Records whatever {@link UserRoleCacheInvalidation} appends, keyed by event type. */
+	private static EntityManagerFactory entityManagerFactory(Map<EventType<?>, Object> listeners) {
+		EventListenerRegistry registry = mock(EventListenerRegistry.class);
+		doAnswer(inv -> listeners.put(inv.getArgument(0), ((Object[]) inv.getRawArguments()[1])[0]))
+				.when(registry).appendListeners(any(EventType.class), any(Object[].class));
+		ServiceRegistryImplementor services = mock(ServiceRegistryImplementor.class);
+		when(services.getService(eq(EventListenerRegistry.class))).thenReturn(registry);
+		SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+		when(sessionFactory.getServiceRegistry()).thenReturn(services);
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+		return entityManagerFactory;
+	}
+
+	private static User user(Long id, String email, Role role) {
+		User user = new User("Alice", email, "hash");
+		user.setId(id);
+		user.setRoles(Set.of(role));
+		return user;
+	}
+
+	private static UserDetailsResponse details(Long id, String name, String email, Role role) {
+		UserDetailsResponse details = new UserDetailsResponse();
+		details.setId(id);
+		details.setName(name);
+		details.setEmail(email);
+		details.setRoleName(role);
+		return details;
+	}
+
+}
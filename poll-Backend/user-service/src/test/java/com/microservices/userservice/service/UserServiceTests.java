@@ -0,0 +1,117 @@
+package com.microservices.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.microservices.userservice.controller.UserController;
+import com.microservices.userservice.exception.RestExceptionHandler;
+import com.microservices.userservice.model.User;
+import com.microservices.userservice.payload.auth.UserDetailsResponse;
+import com.microservices.userservice.repository.UserRepository;
+import com.microservices.userservice.util.enums.Role;
+
+/** Batch lookups against a mocked repository, a real cache and a batch cap of five ids. */
+public class UserServiceTests {
+
+	private UserRepository userRepository;
+	private UserDetailsCache cache;
+	private UserService service;
+
+	@BeforeEach
+	void setup() {
+		userRepository = mock(UserRepository.class);
+		cache = new UserDetailsCache(100, 300);
+		service = new UserService();
+		ReflectionTestUtils.setField(service, "userRepository", userRepository);
+		ReflectionTestUtils.setField(service, "userDetailsCache", cache);
+		ReflectionTestUtils.setField(service, "maxBatchSize", 5);
+	}
+
+	@Test
+	void batch_followsRequestOrder_andDropsDuplicatesAndUnknownIds() {
+		// the repository answers in its own order and knows nothing of id 9
+		when(userRepository.findByIdIn(List.of(3L, 1L, 9L))).thenReturn(List.of(user(1L), user(3L)));
+
+		List<UserDetailsResponse> result = service.getUserDetails(Arrays.asList(3L, 1L, 3L, null, 9L));
+
+		assertThat(result).extracting(UserDetailsResponse::getId).containsExactly(3L, 1L);
+		assertThat(result.get(0).getName()).isEqualTo("user3");
+	}
+
+	@Test
+	void batch_servesCacheHits_andLoadsOnlyTheMisses() {
+		cache.put(service.getUserDetails(user(2L)));
+		when(userRepository.findByIdIn(List.of(1L))).thenReturn(List.of(user(1L)));
+
+		List<UserDetailsResponse> result = service.getUserDetails(List.of(2L, 1L));
+
+		assertThat(result).extracting(UserDetailsResponse::getId).containsExactly(2L, 1L);
+		verify(userRepository).findByIdIn(List.of(1L));
+		assertThat(cache.getById(1L)).isNotNull();
+	}
+
+	@Test
+	void batch_overTheCap_isRejectedBeforeAnyLookup() {
+		List<Long> ids = LongStream.rangeClosed(1, 6).boxed().toList();
+
+		assertThrows(IllegalArgumentException.class, () -> service.getUserDetails(ids));
+		verify(userRepository, never()).findByIdIn(any());
+	}
+
+	@Test
+	void batch_atTheCap_isServed() {
+		List<Long> ids = LongStream.rangeClosed(1, 5).boxed().toList();
+		when(userRepository.findByIdIn(ids)).thenReturn(ids.stream().map(UserServiceTests::user).toList());
+
+		assertThat(service.getUserDetails(ids)).hasSize(5);
+	}
+
+	@Test
+	void batchEndpoint_answers400_overTheCap() throws Exception {
+		UserController controller = new UserController();
+		ReflectionTestUtils.setField(controller, "userService", service);
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(controller)
+				.setControllerAdvice(new RestExceptionHandler())
+				.build();
+
+		mvc.perform(post("/user/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[1,2,3,4,5,6]}"))
+				.andExpect(status().isBadRequest());
+
+		when(userRepository.findByIdIn(List.of(2L, 1L))).thenReturn(List.of(user(1L), user(2L)));
+		mvc.perform(post("/user/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[2,1,2]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].id").value(2))
+				.andExpect(jsonPath("$[1].id").value(1));
+	}
+
+	private static User user(Long id) {
+		User user = new User("user" + id, "user" + id + "@example.com", "hash");
+		user.setId(id);
+		user.setRoles(Set.of(Role.USER));
+		return user;
+	}
+
+}